@@ -0,0 +1,115 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Arrays;
+
+/**
+ * Writes and reads {@code @AutoParcel} values of any registered class, prefixed by the integer id
+ * of their class instead of its name.
+ *
+ * <pre>
+ * <code>
+ * AutoParcels.register(new com.example.model.AutoParcelRegistry());
+ *
+ * AutoParcels.write(value, dest);
+ * Object value = AutoParcels.read(in);
+ * </code>
+ * </pre>
+ *
+ * Unlike {@code Parcel.readParcelable()}, reads need no class loader, no class name string and no
+ * lookup in the synchronized {@code CREATOR} cache of {@code Parcel}. Registries are kept in a
+ * copy-on-write array, so lookups never lock.
+ */
+public final class AutoParcels {
+    private static final int NULL_ID = 0;
+
+    private static volatile ParcelRegistry[] sRegistries = new ParcelRegistry[0];
+
+    private AutoParcels() {
+    }
+
+    /**
+     * Registers the classes of a generated {@code AutoParcelRegistry}. Should be called early,
+     * before any value is read.
+     *
+     * @param registry the registry to add
+     */
+    public static synchronized void register(ParcelRegistry registry) {
+        if (registry == null) {
+            throw new NullPointerException("registry == null");
+        }
+        ParcelRegistry[] registries = Arrays.copyOf(sRegistries, sRegistries.length + 1);
+        registries[registries.length - 1] = registry;
+        sRegistries = registries;
+    }
+
+    /**
+     * @see #write(Object, Parcel, int)
+     */
+    public static void write(Object value, Parcel dest) {
+        write(value, dest, 0);
+    }
+
+    /**
+     * Writes the id of the class of {@code value} followed by its fields
+     *
+     * @param value an instance of a registered class, or {@code null}
+     * @throws IllegalArgumentException if the class of {@code value} is not registered
+     */
+    public static void write(Object value, Parcel dest, int flags) {
+        if (value == null) {
+            dest.writeInt(NULL_ID);
+            return;
+        }
+        Class<?> type = value.getClass();
+        for (ParcelRegistry registry : sRegistries) {
+            int id = registry.idOf(type);
+            if (id != NULL_ID) {
+                dest.writeInt(id);
+                ((Parcelable) value).writeToParcel(dest, flags);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Class not registered: " + type.getName());
+    }
+
+    /**
+     * Reads a value written by {@link #write(Object, Parcel, int)}
+     *
+     * @return the value, or {@code null}
+     * @throws BadParcelableException if the id of the class is not registered
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(Parcel in) {
+        int id = in.readInt();
+        if (id == NULL_ID) {
+            return null;
+        }
+        for (ParcelRegistry registry : sRegistries) {
+            Parcelable.Creator<?> creator = registry.creatorOf(id);
+            if (creator != null) {
+                return (T) creator.createFromParcel(in);
+            }
+        }
+        throw new BadParcelableException("Class id not registered: " + id);
+    }
+}
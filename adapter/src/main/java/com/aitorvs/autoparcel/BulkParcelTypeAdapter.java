@@ -0,0 +1,81 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import java.util.List;
+
+/**
+ * A {@link ParcelTypeAdapter} that can also write and read many values at once, for instance as
+ * columns of primitive arrays. The generated code uses these methods instead of
+ * {@link #toParcel} and {@link #fromParcel} for the elements of {@code List}, {@code ArrayList}
+ * and array fields annotated with {@code @ParcelAdapter(element = ...)}.
+ *
+ * <pre>
+ * <code>
+ * public class DateTypeAdapter implements BulkParcelTypeAdapter&lt;Date&gt; {
+ *   ...
+ *
+ *   public void toParcelArray(List&lt;Date&gt; values, Parcel dest) {
+ *     boolean[] present = new boolean[values.size()];
+ *     long[] millis = new long[present.length];
+ *     for (int i = 0; i &lt; millis.length; i++) {
+ *       Date value = values.get(i);
+ *       present[i] = value != null;
+ *       millis[i] = value != null ? value.getTime() : 0;
+ *     }
+ *     dest.writeBooleanArray(present);
+ *     dest.writeLongArray(millis);
+ *   }
+ *
+ *   public void fromParcelArray(Parcel in, int count, List&lt;Date&gt; out) {
+ *     boolean[] present = in.createBooleanArray();
+ *     long[] millis = in.createLongArray();
+ *     if (present == null || millis == null || present.length != count || millis.length != count) {
+ *       throw new BadParcelableException("Corrupt dates");
+ *     }
+ *     for (int i = 0; i &lt; count; i++) {
+ *       out.add(present[i] ? new Date(millis[i]) : null);
+ *     }
+ *   }
+ * }
+ * </code>
+ * </pre>
+ *
+ * The generated code writes the number of values itself, and handles {@code null} collections.
+ * The values may contain {@code null} elements, which the adapter must write and read back. The
+ * parcel may be corrupt or forged, so the adapter must check what it reads against {@code count}.
+ */
+public interface BulkParcelTypeAdapter<T> extends ParcelTypeAdapter<T> {
+
+    /**
+     * Writes all the {@code values} into {@code dest}.
+     * @param values The values to be written, in order.
+     * @param dest The {@link Parcel} in which to write {@code values}.
+     */
+    void toParcelArray(List<T> values, Parcel dest);
+
+    /**
+     * Reads the values written by {@link #toParcelArray} and adds them to {@code out}.
+     * @param in The {@link Parcel} which contains the values.
+     * @param count The number of values that were written.
+     * @param out The list to add the {@code count} values to, in order.
+     */
+    void fromParcelArray(Parcel in, int count, List<T> out);
+
+}
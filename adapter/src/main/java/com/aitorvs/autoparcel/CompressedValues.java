@@ -0,0 +1,239 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes the {@code @ParcelCompressed} values.
+ *
+ * <p>Every value starts with a flag. {@link #RAW} is followed by the value as written by
+ * {@code writeString()} or {@code writeByteArray()}; {@link #DEFLATED} is followed by the
+ * uncompressed length and a {@code byte[]} with the deflated value.
+ *
+ * <p>Each thread keeps its own {@link Deflater}, {@link Inflater}, UTF-8 encoder and scratch
+ * buffers, so that there is no setup cost per value.
+ */
+public final class CompressedValues {
+    private static final int RAW = 0;
+    private static final int DEFLATED = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // deflate shrinks data by at most 1032 to 1
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private static final ThreadLocal<Codec> sCodec = new ThreadLocal<Codec>() {
+        @Override
+        protected Codec initialValue() {
+            return new Codec();
+        }
+    };
+
+    private CompressedValues() {
+    }
+
+    public static void writeByteArray(Parcel dest, byte[] value, int minBytes) {
+        if (value == null || value.length < minBytes || !sCodec.get().deflate(dest, value, value.length)) {
+            dest.writeInt(RAW);
+            dest.writeByteArray(value);
+        }
+    }
+
+    public static byte[] createByteArray(Parcel in) {
+        return createByteArray(in, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSize maximum length of the value
+     * @throws ParcelSizeException if the value is longer than {@code maxSize}, or than the data
+     *                             left in the parcel
+     */
+    public static byte[] createByteArray(Parcel in, int maxSize) {
+        if (readFlag(in) == RAW) {
+            ParcelGuards.checkLength(in, false, maxSize, 1);
+            return in.createByteArray();
+        }
+        int length = in.readInt();
+        ParcelGuards.checkLength(length, Integer.MAX_VALUE, maxSize, 1);
+        ParcelGuards.checkLength(in, false, Integer.MAX_VALUE, 1);
+        byte[] compressed = in.createByteArray();
+        checkInflatedLength(length, compressed);
+        byte[] value = new byte[length];
+        sCodec.get().inflate(compressed, value, length);
+        return value;
+    }
+
+    public static void writeString(Parcel dest, String value, int minBytes) {
+        // strings are laid out as UTF-16 in the parcel, only those over the threshold are encoded
+        if (value == null || value.length() * 2 < minBytes || !sCodec.get().deflate(dest, value)) {
+            dest.writeInt(RAW);
+            dest.writeString(value);
+        }
+    }
+
+    public static void writeCharSequence(Parcel dest, CharSequence value, int minBytes) {
+        writeString(dest, value == null ? null : value.toString(), minBytes);
+    }
+
+    public static String readString(Parcel in) {
+        return readString(in, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSize maximum number of chars of the value
+     * @throws ParcelSizeException if the value is longer than {@code maxSize}, or than the data
+     *                             left in the parcel
+     */
+    public static String readString(Parcel in, int maxSize) {
+        if (readFlag(in) == RAW) {
+            ParcelGuards.checkLength(in, false, maxSize, 2);
+            return in.readString();
+        }
+        // UTF-8 takes at most 3 bytes per char
+        int length = in.readInt();
+        ParcelGuards.checkLength(length, Integer.MAX_VALUE, (int) Math.min(maxSize * 3L, Integer.MAX_VALUE), 1);
+        ParcelGuards.checkLength(in, false, Integer.MAX_VALUE, 1);
+        byte[] compressed = in.createByteArray();
+        checkInflatedLength(length, compressed);
+        Codec codec = sCodec.get();
+        byte[] buffer = codec.buffer(length);
+        codec.inflate(compressed, buffer, length);
+        return new String(buffer, 0, length, UTF_8);
+    }
+
+    /**
+     * @return {@link #RAW} or {@link #DEFLATED}
+     * @throws BadParcelableException for any other flag
+     */
+    private static int readFlag(Parcel in) {
+        int flag = in.readInt();
+        if (flag != RAW && flag != DEFLATED) {
+            throw new BadParcelableException("Unknown compression flag " + flag);
+        }
+        return flag;
+    }
+
+    /**
+     * Checks the declared uncompressed length against what the compressed bytes can inflate to,
+     * before anything is allocated for it
+     *
+     * @throws ParcelSizeException if the length cannot be right
+     */
+    private static void checkInflatedLength(int length, byte[] compressed) {
+        if (compressed == null || length < 0) {
+            throw new BadParcelableException("Corrupt compressed value");
+        }
+        if (length > (long) compressed.length * MAX_DEFLATE_RATIO) {
+            throw new ParcelSizeException("Length " + length + " exceeds what " + compressed.length
+                    + " compressed bytes inflate to");
+        }
+    }
+
+    private static final class Codec {
+        final Deflater mDeflater = new Deflater();
+        final Inflater mInflater = new Inflater();
+        final CharsetEncoder mEncoder = UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        byte[] mBuffer = new byte[4096];
+        ByteBuffer mEncoded = ByteBuffer.allocate(4096);
+
+        byte[] buffer(int size) {
+            if (mBuffer.length < size) {
+                mBuffer = new byte[Math.max(size, mBuffer.length * 2)];
+            }
+            return mBuffer;
+        }
+
+        /**
+         * Writes the value encoded as UTF-8 and deflated, unless it does not shrink
+         *
+         * @return {@code true} if the value has been written
+         */
+        boolean deflate(Parcel dest, String value) {
+            // UTF-8 takes at most 3 bytes per char
+            if (mEncoded.capacity() < value.length() * 3) {
+                mEncoded = ByteBuffer.allocate(Math.max(value.length() * 3, mEncoded.capacity() * 2));
+            }
+            mEncoded.clear();
+            mEncoder.reset();
+            mEncoder.encode(CharBuffer.wrap(value), mEncoded, true);
+            mEncoder.flush(mEncoded);
+            return deflate(dest, mEncoded.array(), mEncoded.position());
+        }
+
+        /**
+         * Writes the first {@code count} bytes of the value deflated, unless they do not shrink
+         *
+         * @return {@code true} if the value has been written
+         */
+        boolean deflate(Parcel dest, byte[] value, int count) {
+            mDeflater.reset();
+            mDeflater.setInput(value, 0, count);
+            mDeflater.finish();
+            int length = 0;
+            while (!mDeflater.finished()) {
+                if (length >= count) {
+                    // not worth it
+                    return false;
+                }
+                if (length == mBuffer.length) {
+                    mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+                }
+                length += mDeflater.deflate(mBuffer, length, mBuffer.length - length);
+            }
+            if (length >= count) {
+                return false;
+            }
+            dest.writeInt(DEFLATED);
+            dest.writeInt(count);
+            dest.writeByteArray(mBuffer, 0, length);
+            return true;
+        }
+
+        void inflate(byte[] compressed, byte[] value, int length) {
+            mInflater.reset();
+            mInflater.setInput(compressed);
+            try {
+                int offset = 0;
+                while (offset < length) {
+                    int inflated = mInflater.inflate(value, offset, length - offset);
+                    // with the whole input set, no progress means a truncated stream, or one
+                    // that needs a preset dictionary
+                    if (inflated == 0) {
+                        throw new BadParcelableException(mInflater.needsDictionary()
+                                ? "Compressed value needs a dictionary"
+                                : "Truncated compressed value");
+                    }
+                    offset += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new BadParcelableException(e);
+            }
+        }
+    }
+}
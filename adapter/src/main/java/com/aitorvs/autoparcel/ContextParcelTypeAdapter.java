@@ -0,0 +1,62 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+/**
+ * A variant of {@link ParcelTypeAdapter} that also receives the {@link ParcelContext} of the
+ * read or write in progress, to reuse its buffers or share state with the other values written
+ * by the same top-level {@code writeToParcel()}.
+ *
+ * <pre>
+ * <code>
+ * public class TagTypeAdapter implements ContextParcelTypeAdapter&lt;Tag&gt; {
+ *   public Tag fromParcel(Parcel in, ParcelContext context) {
+ *     List&lt;Tag&gt; table = context.get(this);
+ *     ...
+ *   }
+ *
+ *   public void toParcel(Tag value, Parcel dest, ParcelContext context) {
+ *     Map&lt;Tag, Integer&gt; table = context.get(this);
+ *     ...
+ *   }
+ * }
+ * </code>
+ * </pre>
+ *
+ * @see ParcelAdapter
+ */
+public interface ContextParcelTypeAdapter<T> {
+
+    /**
+     * Creates a new object based on the values in the provided {@link Parcel}.
+     * @param in The {@link Parcel} which contains the values of {@code T}.
+     * @param context The context of the read in progress.
+     * @return A new object based on the values in {@code in}.
+     */
+    T fromParcel(Parcel in, ParcelContext context);
+
+    /**
+     * Writes {@code value} into {@code dest}.
+     * @param value The object to be written.
+     * @param dest The {@link Parcel} in which to write {@code value}.
+     * @param context The context of the write in progress.
+     */
+    void toParcel(T value, Parcel dest, ParcelContext context);
+
+}
@@ -0,0 +1,57 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+/**
+ * A variant of {@link ParcelTypeAdapter} for {@code double} and {@code Double} fields that reads and
+ * writes the values without boxing them.
+ *
+ * <pre>
+ * <code>
+ * public class RatioTypeAdapter implements DoubleParcelTypeAdapter {
+ *   public double fromParcel(Parcel in) {
+ *     return in.readDouble();
+ *   }
+ *
+ *   public void toParcel(double value, Parcel dest) {
+ *     dest.writeDouble(value);
+ *   }
+ * }
+ * </code>
+ * </pre>
+ *
+ * @see ParcelAdapter
+ */
+public interface DoubleParcelTypeAdapter {
+
+    /**
+     * Reads a value from the provided {@link Parcel}.
+     * @param in The {@link Parcel} which contains the value.
+     * @return The value read from {@code in}.
+     */
+    double fromParcel(Parcel in);
+
+    /**
+     * Writes {@code value} into {@code dest}.
+     * @param value The value to be written.
+     * @param dest The {@link Parcel} in which to write {@code value}.
+     */
+    void toParcel(double value, Parcel dest);
+
+}
@@ -0,0 +1,88 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of reusable instances of the {@code @AutoParcel(pooled = true)} classes, in the
+ * style of {@code android.os.Message.obtain()}.
+ *
+ * <p>The pool is a fixed array of slots claimed with compare-and-set, so it never locks and never
+ * allocates. Each thread starts scanning at its own slot, so that threads obtaining and recycling
+ * at the same time rarely race on the same one. When the pool is empty callers allocate, when it
+ * is full recycled instances are left to the garbage collector.
+ *
+ * @param <T> type of the pooled instances
+ */
+public final class ObjectPool<T> {
+    private static final int DEFAULT_SIZE = 16;
+
+    private final AtomicReferenceArray<T> mSlots;
+
+    public ObjectPool() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size maximum number of pooled instances
+     */
+    public ObjectPool(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        mSlots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * @return a pooled instance, or {@code null} if the pool is empty
+     */
+    public T acquire() {
+        int size = mSlots.length();
+        int start = start(size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            T instance = mSlots.get(index);
+            if (instance != null && mSlots.compareAndSet(index, instance, null)) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an instance to the pool. The instance must not be used anymore by the caller.
+     *
+     * @param instance the instance to pool
+     * @return {@code true} if the instance was pooled, {@code false} if the pool is full
+     */
+    public boolean release(T instance) {
+        int size = mSlots.length();
+        int start = start(size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (mSlots.get(index) == null && mSlots.compareAndSet(index, null, instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int start(int size) {
+        return (int) (Thread.currentThread().getId() % size);
+    }
+}
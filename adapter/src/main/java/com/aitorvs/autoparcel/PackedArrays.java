@@ -0,0 +1,169 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+/**
+ * Reads and writes the {@code @ParcelPacked} arrays.
+ *
+ * <p>An array is written as its length, or -1 when {@code null}, followed by a {@code byte[]}
+ * holding the zig-zag varint encoded delta of every element with the previous one. The first
+ * element is encoded as its delta with 0.
+ *
+ * <p>Writing encodes into a per-thread buffer. Reading decodes from the {@code byte[]} returned by
+ * {@code Parcel.createByteArray()}, one temporary allocation per array: a {@code Parcel} cannot
+ * read a {@code byte[]} of unknown length into an existing buffer.
+ */
+public final class PackedArrays {
+    private static final ThreadLocal<byte[]> sBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+
+    private PackedArrays() {
+    }
+
+    public static void writeIntArray(Parcel dest, int[] values) {
+        if (values == null) {
+            dest.writeInt(-1);
+            return;
+        }
+        dest.writeInt(values.length);
+        // a zig-zag varint int takes 5 bytes at most
+        byte[] buffer = buffer(values.length * 5);
+        int length = 0;
+        int previous = 0;
+        for (int value : values) {
+            int delta = value - previous;
+            previous = value;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                buffer[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[length++] = (byte) zigzag;
+        }
+        dest.writeByteArray(buffer, 0, length);
+    }
+
+    public static int[] createIntArray(Parcel in) {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        byte[] bytes = in.createByteArray();
+        checkCount(count, bytes);
+        int[] values = new int[count];
+        int position = 0;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == bytes.length || shift > 28) {
+                    throw new BadParcelableException("Truncated or corrupt packed int array");
+                }
+                b = bytes[position++];
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    public static void writeLongArray(Parcel dest, long[] values) {
+        if (values == null) {
+            dest.writeInt(-1);
+            return;
+        }
+        dest.writeInt(values.length);
+        // a zig-zag varint long takes 10 bytes at most
+        byte[] buffer = buffer(values.length * 10);
+        int length = 0;
+        long previous = 0;
+        for (long value : values) {
+            long delta = value - previous;
+            previous = value;
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[length++] = (byte) zigzag;
+        }
+        dest.writeByteArray(buffer, 0, length);
+    }
+
+    public static long[] createLongArray(Parcel in) {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        byte[] bytes = in.createByteArray();
+        checkCount(count, bytes);
+        long[] values = new long[count];
+        int position = 0;
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == bytes.length || shift > 63) {
+                    throw new BadParcelableException("Truncated or corrupt packed long array");
+                }
+                b = bytes[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    /**
+     * Checks the declared number of elements before allocating them, each takes 1 byte at least
+     */
+    private static void checkCount(int count, byte[] bytes) {
+        if (bytes == null) {
+            throw new BadParcelableException("Missing packed array data");
+        }
+        if (count > bytes.length) {
+            throw new ParcelSizeException("Length " + count + " exceeds the " + bytes.length + " packed bytes");
+        }
+    }
+
+    /**
+     * @return the scratch buffer of the calling thread, grown to at least {@code size} bytes
+     */
+    private static byte[] buffer(int size) {
+        byte[] buffer = sBuffer.get();
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+            sBuffer.set(buffer);
+        }
+        return buffer;
+    }
+}
@@ -26,7 +26,9 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
 /**
  * An annotation that indicates the auto-parcel {@link ParcelTypeAdapter} to use to
  * parcel and unparcel the field.  The value must be set to a valid {@link ParcelTypeAdapter}
- * class.
+ * class, or to an {@link IntParcelTypeAdapter}, {@link LongParcelTypeAdapter} or
+ * {@link DoubleParcelTypeAdapter} class for fields of the matching primitive type. A
+ * {@link ContextParcelTypeAdapter} also receives the {@link ParcelContext} of the write.
  *
  * <pre>
  * <code>
@@ -38,11 +40,49 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
  *
  * The generated code will instantiate and use the {@code DateTypeAdapter} class to parcel and
  * unparcel the {@code date()} property. In order for the generated code to instantiate the
- * {@link ParcelTypeAdapter}, it needs a public, no-arg constructor.
+ * {@link ParcelTypeAdapter}, it needs a public, no-arg constructor, or a
+ * {@code public static final INSTANCE} field.
+ *
+ * <p>For collection fields the adapter can instead apply to each element, key or map value:
+ *
+ * <pre>
+ * <code>
+ * {@literal @}ParcelAdapter(element = DateTypeAdapter.class) public List&lt;Date&gt; dates;
+ * {@literal @}ParcelAdapter(key = LocaleTypeAdapter.class, mapValue = BigDecimalTypeAdapter.class)
+ * public Map&lt;Locale, BigDecimal&gt; prices;
+ * </code>
+ * </pre>
+ *
+ * The generated code rejects collections with more elements than the remaining bytes of the
+ * parcel can hold, so element, key and map value adapters must write at least one value for
+ * each element.
  */
 @Target(FIELD)
 @Retention(SOURCE)
 @Documented
 public @interface ParcelAdapter {
-    Class<? extends ParcelTypeAdapter<?>> value();
+    /**
+     * @return a {@link ParcelTypeAdapter}, {@link ContextParcelTypeAdapter},
+     * {@link IntParcelTypeAdapter}, {@link LongParcelTypeAdapter} or
+     * {@link DoubleParcelTypeAdapter} class
+     */
+    Class<?> value() default Void.class;
+
+    /**
+     * @return the adapter of the elements of a {@code List}, {@code ArrayList}, {@code ArraySet}
+     * or array of objects
+     */
+    Class<?> element() default Void.class;
+
+    /**
+     * @return the adapter of the keys of a {@code Map}, {@code HashMap}, {@code LinkedHashMap}
+     * or {@code ArrayMap}
+     */
+    Class<?> key() default Void.class;
+
+    /**
+     * @return the adapter of the values of a map, {@code SparseArray}, {@code LongSparseArray},
+     * {@code SparseIntArray}, {@code SparseLongArray} or {@code EnumMap}
+     */
+    Class<?> mapValue() default Void.class;
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * State shared by everything written to, or read from, a {@code Parcel} by one top-level
+ * {@code writeToParcel()} or read of an {@code @AutoParcel} class: reusable scratch buffers and a
+ * cache, e.g. for string tables or identity maps.
+ *
+ * <p>The generated code enters the context of the current thread around the reads and writes of
+ * the classes with {@link ContextParcelTypeAdapter} fields, and of the classes that nest them.
+ * Nested reads and writes enter the same context again, and the cache is cleared when the
+ * outermost one exits. The context is confined to its thread and is not thread-safe.
+ */
+public final class ParcelContext {
+    private static final ThreadLocal<ParcelContext> sCurrent = new ThreadLocal<ParcelContext>();
+    // larger buffers are dropped after the outermost exit rather than kept by the thread
+    private static final int MAX_RETAINED_LENGTH = 64 * 1024;
+
+    private final Map<Object, Object> mCache = new HashMap<Object, Object>();
+    private byte[] mBytes = new byte[0];
+    private char[] mChars = new char[0];
+    private int mDepth;
+
+    private ParcelContext() {
+    }
+
+    /**
+     * Enters the context of the current thread, creating it for the outermost read or write. Each
+     * call must be matched by a call to {@link #exit()}, in a {@code finally} block.
+     *
+     * @return the context of the current thread
+     */
+    public static ParcelContext enter() {
+        ParcelContext context = sCurrent.get();
+        if (context == null) {
+            context = new ParcelContext();
+            sCurrent.set(context);
+        }
+        context.mDepth++;
+        return context;
+    }
+
+    /**
+     * @return the context entered by the current thread, or {@code null} outside of any read or
+     * write
+     */
+    public static ParcelContext current() {
+        ParcelContext context = sCurrent.get();
+        return context != null && context.mDepth > 0 ? context : null;
+    }
+
+    /**
+     * Leaves the context. The outermost exit clears the cache.
+     */
+    public void exit() {
+        if (mDepth <= 0) {
+            throw new IllegalStateException("exit() without enter()");
+        }
+        if (--mDepth == 0) {
+            mCache.clear();
+            if (mBytes.length > MAX_RETAINED_LENGTH) {
+                mBytes = new byte[0];
+            }
+            if (mChars.length > MAX_RETAINED_LENGTH) {
+                mChars = new char[0];
+            }
+        }
+    }
+
+    /**
+     * @return the number of reads or writes in progress, 1 for the outermost one
+     */
+    public int depth() {
+        return mDepth;
+    }
+
+    /**
+     * Returns a scratch buffer of at least {@code minLength} bytes, with undefined contents. The
+     * buffer is shared, it must not be held across nested reads or writes.
+     *
+     * @param minLength the minimum length of the buffer
+     */
+    public byte[] bytes(int minLength) {
+        if (mBytes.length < minLength) {
+            mBytes = new byte[Math.max(minLength, mBytes.length * 2)];
+        }
+        return mBytes;
+    }
+
+    /**
+     * Returns a scratch buffer of at least {@code minLength} chars, with undefined contents. The
+     * buffer is shared, it must not be held across nested reads or writes.
+     *
+     * @param minLength the minimum length of the buffer
+     */
+    public char[] chars(int minLength) {
+        if (mChars.length < minLength) {
+            mChars = new char[Math.max(minLength, mChars.length * 2)];
+        }
+        return mChars;
+    }
+
+    /**
+     * @param key the key of the value, e.g. the adapter that put it
+     * @return the value cached under {@code key} by this read or write, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key) {
+        return (T) mCache.get(key);
+    }
+
+    /**
+     * Caches {@code value} under {@code key} until the outermost read or write exits
+     *
+     * @param key   the key of the value, e.g. the adapter that puts it
+     * @param value the value, {@code null} to remove it
+     */
+    public void put(Object key, Object value) {
+        if (value == null) {
+            mCache.remove(key);
+        } else {
+            mCache.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+/**
+ * Checks the lengths declared in a {@code Parcel} before the generated code allocates anything
+ * for them, see {@code @ParcelMaxSize}.
+ */
+public final class ParcelGuards {
+    private ParcelGuards() {
+    }
+
+    /**
+     * Peeks the length of the next value, without moving the data position, and checks it against
+     * {@code maxSize} and the data left in the parcel.
+     *
+     * @param nullable       whether the value is preceded by a null marker
+     * @param maxSize        maximum number of elements
+     * @param minElementSize minimum number of bytes each element takes in the parcel
+     * @throws ParcelSizeException if the length is too large
+     */
+    public static void checkLength(Parcel in, boolean nullable, int maxSize, int minElementSize) {
+        int start = in.dataPosition();
+        try {
+            if (nullable && in.readInt() != 0) {
+                // null, nothing follows
+                return;
+            }
+            checkLength(in.readInt(), in.dataAvail(), maxSize, minElementSize);
+        } finally {
+            in.setDataPosition(start);
+        }
+    }
+
+    /**
+     * @param length         declared number of elements
+     * @param avail          number of bytes left in the parcel after the length
+     * @param maxSize        maximum number of elements
+     * @param minElementSize minimum number of bytes each element takes in the parcel
+     * @throws ParcelSizeException if the length is too large
+     */
+    public static void checkLength(int length, int avail, int maxSize, int minElementSize) {
+        if (length > maxSize) {
+            throw new ParcelSizeException("Length " + length + " exceeds the maximum size " + maxSize);
+        }
+        if ((long) length * minElementSize > avail) {
+            throw new ParcelSizeException("Length " + length + " exceeds the " + avail + " bytes left");
+        }
+    }
+}
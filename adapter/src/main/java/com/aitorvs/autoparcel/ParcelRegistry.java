@@ -0,0 +1,38 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcelable;
+
+/**
+ * Maps the {@code @AutoParcel} classes of a package to stable integer ids and back to their
+ * {@code CREATOR}. The processor generates one {@code AutoParcelRegistry} implementation per package,
+ * to be handed to {@link AutoParcels#register(ParcelRegistry)}.
+ */
+public interface ParcelRegistry {
+    /**
+     * @param type the runtime class of a value
+     * @return the id of the class, or 0 if the class is not in this registry
+     */
+    int idOf(Class<?> type);
+
+    /**
+     * @param id the id of a class
+     * @return the {@code CREATOR} of the class, or {@code null} if the id is not in this registry
+     */
+    Parcelable.Creator<?> creatorOf(int id);
+}
@@ -0,0 +1,31 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+
+/**
+ * Thrown when a {@code Parcel} declares a length larger than the {@code @ParcelMaxSize} of the
+ * field being read, or than the data left in the {@code Parcel}, before anything is allocated.
+ */
+public class ParcelSizeException extends BadParcelableException {
+    private static final long serialVersionUID = 1L;
+
+    public ParcelSizeException(String msg) {
+        super(msg);
+    }
+}
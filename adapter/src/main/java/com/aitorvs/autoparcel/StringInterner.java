@@ -0,0 +1,87 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A bounded string interner used by the generated code for {@code @ParcelIntern} fields.
+ *
+ * <p>The interner is a direct-mapped cache: every value hashes into exactly one slot and a
+ * colliding value simply replaces the previous one. It never grows, never locks and never
+ * allocates, which makes it cheap enough to sit in the read path of every {@code Parcel}.
+ * Concurrent access is safe because {@link String} is immutable; at worst two threads race on
+ * a slot and one of the values is not canonicalised.
+ */
+public final class StringInterner {
+    private static final int DEFAULT_GLOBAL_SIZE = 1024;
+    private static volatile StringInterner sGlobal = new StringInterner(DEFAULT_GLOBAL_SIZE);
+
+    private final String[] mTable;
+    private final int mMask;
+
+    /**
+     * @param size number of slots, rounded up to the next power of two
+     */
+    public StringInterner(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        mTable = new String[capacity];
+        mMask = capacity - 1;
+    }
+
+    /**
+     * @return the process-wide interner used by {@code @ParcelIntern(global = true)} fields
+     */
+    public static StringInterner global() {
+        return sGlobal;
+    }
+
+    /**
+     * Replaces the process-wide interner, e.g. to change its size. Should be called early, before
+     * any model is read from a {@code Parcel}.
+     *
+     * @param interner the new global interner
+     */
+    public static void setGlobal(StringInterner interner) {
+        if (interner == null) {
+            throw new NullPointerException("interner == null");
+        }
+        sGlobal = interner;
+    }
+
+    /**
+     * @param value the value to intern, may be {@code null}
+     * @return a previously seen instance equal to {@code value}, or {@code value} itself
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mMask;
+        String cached = mTable[index];
+        if (cached != null && cached.equals(value)) {
+            return cached;
+        }
+        mTable[index] = value;
+        return value;
+    }
+}
@@ -0,0 +1,108 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import java.nio.charset.Charset;
+
+/**
+ * Reads and writes the {@code @ParcelUtf8} strings as a UTF-8 {@code byte[]}, or -1 when
+ * {@code null}.
+ *
+ * <p>Strings are encoded into a per-thread scratch buffer, so writing does not allocate. ASCII
+ * strings take a fast path both ways, that skips the charset machinery.
+ */
+public final class Utf8Strings {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<byte[]> sBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+
+    private Utf8Strings() {
+    }
+
+    public static void writeString(Parcel dest, String value) {
+        if (value == null) {
+            dest.writeByteArray(null);
+            return;
+        }
+        int length = value.length();
+        // a char takes 3 bytes at most, surrogate pairs take 4 bytes for 2 chars
+        byte[] buffer = sBuffer.get();
+        if (buffer.length < length * 3) {
+            buffer = new byte[Math.max(length * 3, buffer.length * 2)];
+            sBuffer.set(buffer);
+        }
+
+        int i = 0;
+        // ASCII fast path
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buffer[i] = (byte) c;
+        }
+
+        int position = i;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // unpaired surrogate, replaced like String.getBytes() does
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        dest.writeByteArray(buffer, 0, position);
+    }
+
+    @SuppressWarnings("deprecation")
+    public static String readString(Parcel in) {
+        byte[] bytes = in.createByteArray();
+        if (bytes == null) {
+            return null;
+        }
+        for (byte b : bytes) {
+            if (b < 0) {
+                return new String(bytes, UTF_8);
+            }
+        }
+        // ASCII fast path, every byte is a char
+        return new String(bytes, 0, 0, bytes.length);
+    }
+}
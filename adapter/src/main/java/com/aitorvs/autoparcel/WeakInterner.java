@@ -0,0 +1,66 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Hash-conses instances of the {@code @AutoParcel(intern = true)} classes, so that equal values
+ * read from a {@code Parcel} end up being the same object.
+ *
+ * <p>Canonical instances are only weakly referenced and go away as soon as nobody else holds
+ * them. The table is split in lock stripes, selected by {@link Object#hashCode()}, so that
+ * concurrent readers of different values rarely contend on the same lock.
+ *
+ * @param <T> type of the interned instances. It must implement {@code equals()} and
+ *            {@code hashCode()}, and instances must not be mutated once interned
+ */
+public final class WeakInterner<T> {
+    private static final int STRIPES = 16;
+
+    private final Map<T, WeakReference<T>>[] mStripes;
+
+    // arrays of a generic type can only be created raw
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public WeakInterner() {
+        mStripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            mStripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * @param sample the instance to intern
+     * @return the canonical instance equal to {@code sample}, which is {@code sample} itself if
+     * no equal instance is alive
+     */
+    public T intern(T sample) {
+        int hash = sample.hashCode();
+        Map<T, WeakReference<T>> stripe = mStripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            WeakReference<T> ref = stripe.get(sample);
+            T canonical = ref == null ? null : ref.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            stripe.put(sample, new WeakReference<>(sample));
+            return sample;
+        }
+    }
+}
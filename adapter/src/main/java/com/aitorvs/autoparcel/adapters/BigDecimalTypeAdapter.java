@@ -0,0 +1,47 @@
+package com.aitorvs.autoparcel.adapters;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Writes {@link BigDecimal} values as their {@code int} scale followed by the two's-complement
+ * {@code byte[]} of their unscaled value.
+ */
+public final class BigDecimalTypeAdapter implements ParcelTypeAdapter<BigDecimal> {
+    public static final BigDecimalTypeAdapter INSTANCE = new BigDecimalTypeAdapter();
+
+    private BigDecimalTypeAdapter() {
+    }
+
+    @Override
+    public BigDecimal fromParcel(Parcel in) {
+        int scale = in.readInt();
+        return new BigDecimal(new BigInteger(in.createByteArray()), scale);
+    }
+
+    @Override
+    public void toParcel(BigDecimal value, Parcel dest) {
+        dest.writeInt(value.scale());
+        dest.writeByteArray(value.unscaledValue().toByteArray());
+    }
+}
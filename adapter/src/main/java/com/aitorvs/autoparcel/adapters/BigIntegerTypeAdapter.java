@@ -0,0 +1,43 @@
+package com.aitorvs.autoparcel.adapters;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.math.BigInteger;
+
+/**
+ * Writes {@link BigInteger} values as their two's-complement {@code byte[]}.
+ */
+public final class BigIntegerTypeAdapter implements ParcelTypeAdapter<BigInteger> {
+    public static final BigIntegerTypeAdapter INSTANCE = new BigIntegerTypeAdapter();
+
+    private BigIntegerTypeAdapter() {
+    }
+
+    @Override
+    public BigInteger fromParcel(Parcel in) {
+        return new BigInteger(in.createByteArray());
+    }
+
+    @Override
+    public void toParcel(BigInteger value, Parcel dest) {
+        dest.writeByteArray(value.toByteArray());
+    }
+}
@@ -0,0 +1,44 @@
+package com.aitorvs.autoparcel.adapters;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.util.Currency;
+
+/**
+ * Writes {@link Currency} values as their ISO 4217 code. {@link Currency#getInstance(String)}
+ * returns the shared instance of the currency.
+ */
+public final class CurrencyTypeAdapter implements ParcelTypeAdapter<Currency> {
+    public static final CurrencyTypeAdapter INSTANCE = new CurrencyTypeAdapter();
+
+    private CurrencyTypeAdapter() {
+    }
+
+    @Override
+    public Currency fromParcel(Parcel in) {
+        return Currency.getInstance(in.readString());
+    }
+
+    @Override
+    public void toParcel(Currency value, Parcel dest) {
+        dest.writeString(value.getCurrencyCode());
+    }
+}
@@ -0,0 +1,93 @@
+package com.aitorvs.autoparcel.adapters;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.BulkParcelTypeAdapter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes {@link Date} values as their {@code long} milliseconds since the epoch. Lists and arrays
+ * of dates are written as a single {@code long[]}, and the indexes of their {@code null} elements
+ * as an {@code int[]}.
+ */
+public final class DateTypeAdapter implements BulkParcelTypeAdapter<Date> {
+    public static final DateTypeAdapter INSTANCE = new DateTypeAdapter();
+
+    private DateTypeAdapter() {
+    }
+
+    @Override
+    public Date fromParcel(Parcel in) {
+        return new Date(in.readLong());
+    }
+
+    @Override
+    public void toParcel(Date value, Parcel dest) {
+        dest.writeLong(value.getTime());
+    }
+
+    @Override
+    public void toParcelArray(List<Date> values, Parcel dest) {
+        // iterated rather than indexed, the list may be linked
+        long[] millis = new long[values.size()];
+        int nulls = 0;
+        int i = 0;
+        for (Date value : values) {
+            if (value == null) {
+                nulls++;
+            } else {
+                millis[i] = value.getTime();
+            }
+            i++;
+        }
+        int[] indexes = new int[nulls];
+        if (nulls > 0) {
+            i = 0;
+            int n = 0;
+            for (Date value : values) {
+                if (value == null) {
+                    indexes[n++] = i;
+                }
+                i++;
+            }
+        }
+        dest.writeIntArray(indexes);
+        dest.writeLongArray(millis);
+    }
+
+    @Override
+    public void fromParcelArray(Parcel in, int count, List<Date> out) {
+        int[] indexes = in.createIntArray();
+        long[] millis = in.createLongArray();
+        if (indexes == null || millis == null || millis.length != count) {
+            throw new BadParcelableException("Corrupt date array, expected " + count + " values");
+        }
+        for (int i = 0, n = 0; i < count; i++) {
+            if (n < indexes.length && indexes[n] == i) {
+                out.add(null);
+                n++;
+            } else {
+                out.add(new Date(millis[i]));
+            }
+        }
+    }
+}
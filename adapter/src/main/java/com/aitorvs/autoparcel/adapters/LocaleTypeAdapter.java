@@ -0,0 +1,54 @@
+package com.aitorvs.autoparcel.adapters;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Build;
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.util.Locale;
+
+/**
+ * Writes {@link Locale} values as their IETF BCP 47 language tag, which unlike
+ * {@link Locale#toString()} keeps the script and the extensions. Language tags need API 21, older
+ * versions write the language, country and variant of {@link Locale#toString()} instead.
+ */
+public final class LocaleTypeAdapter implements ParcelTypeAdapter<Locale> {
+    public static final LocaleTypeAdapter INSTANCE = new LocaleTypeAdapter();
+
+    // Build.VERSION_CODES.LOLLIPOP, the adapter is compiled against an older SDK
+    private static final int LANGUAGE_TAGS = 21;
+
+    private LocaleTypeAdapter() {
+    }
+
+    @Override
+    public Locale fromParcel(Parcel in) {
+        String tag = in.readString();
+        if (Build.VERSION.SDK_INT >= LANGUAGE_TAGS) {
+            return Locale.forLanguageTag(tag);
+        }
+        String[] parts = tag.split("_", 3);
+        return new Locale(parts[0], parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : "");
+    }
+
+    @Override
+    public void toParcel(Locale value, Parcel dest) {
+        dest.writeString(Build.VERSION.SDK_INT >= LANGUAGE_TAGS ? value.toLanguageTag() : value.toString());
+    }
+}
@@ -0,0 +1,45 @@
+package com.aitorvs.autoparcel.adapters;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.util.UUID;
+
+/**
+ * Writes {@link UUID} values as their two {@code long} halves.
+ */
+public final class UuidTypeAdapter implements ParcelTypeAdapter<UUID> {
+    public static final UuidTypeAdapter INSTANCE = new UuidTypeAdapter();
+
+    private UuidTypeAdapter() {
+    }
+
+    @Override
+    public UUID fromParcel(Parcel in) {
+        long mostSigBits = in.readLong();
+        return new UUID(mostSigBits, in.readLong());
+    }
+
+    @Override
+    public void toParcel(UUID value, Parcel dest) {
+        dest.writeLong(value.getMostSignificantBits());
+        dest.writeLong(value.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,46 @@
+package com.aitorvs.autoparcel.adapters.time;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.time.Instant;
+
+/**
+ * Writes {@link Instant} values as their {@code long} seconds since the epoch followed by their
+ * {@code int} nanoseconds. Requires API level 26 or desugaring.
+ */
+public final class InstantTypeAdapter implements ParcelTypeAdapter<Instant> {
+    public static final InstantTypeAdapter INSTANCE = new InstantTypeAdapter();
+
+    private InstantTypeAdapter() {
+    }
+
+    @Override
+    public Instant fromParcel(Parcel in) {
+        long seconds = in.readLong();
+        return Instant.ofEpochSecond(seconds, in.readInt());
+    }
+
+    @Override
+    public void toParcel(Instant value, Parcel dest) {
+        dest.writeLong(value.getEpochSecond());
+        dest.writeInt(value.getNano());
+    }
+}
@@ -0,0 +1,48 @@
+package com.aitorvs.autoparcel.adapters.time;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Writes {@link LocalDateTime} values as their {@code long} epoch day followed by their
+ * {@code long} nanosecond of the day. Requires API level 26 or desugaring.
+ */
+public final class LocalDateTimeTypeAdapter implements ParcelTypeAdapter<LocalDateTime> {
+    public static final LocalDateTimeTypeAdapter INSTANCE = new LocalDateTimeTypeAdapter();
+
+    private LocalDateTimeTypeAdapter() {
+    }
+
+    @Override
+    public LocalDateTime fromParcel(Parcel in) {
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readLong()));
+    }
+
+    @Override
+    public void toParcel(LocalDateTime value, Parcel dest) {
+        dest.writeLong(value.toLocalDate().toEpochDay());
+        dest.writeLong(value.toLocalTime().toNanoOfDay());
+    }
+}
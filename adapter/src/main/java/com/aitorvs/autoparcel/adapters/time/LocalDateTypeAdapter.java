@@ -0,0 +1,44 @@
+package com.aitorvs.autoparcel.adapters.time;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.time.LocalDate;
+
+/**
+ * Writes {@link LocalDate} values as their {@code long} epoch day. Requires API level 26 or
+ * desugaring.
+ */
+public final class LocalDateTypeAdapter implements ParcelTypeAdapter<LocalDate> {
+    public static final LocalDateTypeAdapter INSTANCE = new LocalDateTypeAdapter();
+
+    private LocalDateTypeAdapter() {
+    }
+
+    @Override
+    public LocalDate fromParcel(Parcel in) {
+        return LocalDate.ofEpochDay(in.readLong());
+    }
+
+    @Override
+    public void toParcel(LocalDate value, Parcel dest) {
+        dest.writeLong(value.toEpochDay());
+    }
+}
@@ -0,0 +1,44 @@
+package com.aitorvs.autoparcel.adapters.time;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+
+import java.time.LocalTime;
+
+/**
+ * Writes {@link LocalTime} values as their {@code long} nanosecond of the day. Requires API level
+ * 26 or desugaring.
+ */
+public final class LocalTimeTypeAdapter implements ParcelTypeAdapter<LocalTime> {
+    public static final LocalTimeTypeAdapter INSTANCE = new LocalTimeTypeAdapter();
+
+    private LocalTimeTypeAdapter() {
+    }
+
+    @Override
+    public LocalTime fromParcel(Parcel in) {
+        return LocalTime.ofNanoOfDay(in.readLong());
+    }
+
+    @Override
+    public void toParcel(LocalTime value, Parcel dest) {
+        dest.writeLong(value.toNanoOfDay());
+    }
+}
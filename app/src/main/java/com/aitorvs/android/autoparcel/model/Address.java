@@ -20,6 +20,7 @@ import android.os.Parcelable;
 import android.support.annotation.NonNull;
 
 import com.aitorvs.autoparcel.AutoParcel;
+import com.aitorvs.autoparcel.ParcelIntern;
 
 @AutoParcel
 public abstract class Address implements Parcelable {
@@ -28,8 +29,10 @@ public abstract class Address implements Parcelable {
 
     public String postCode;
 
+    @ParcelIntern
     public String city;
 
+    @ParcelIntern(global = true)
     public String country;
 
     public static Address create(@NonNull String street, String postCode, String city, String country) {
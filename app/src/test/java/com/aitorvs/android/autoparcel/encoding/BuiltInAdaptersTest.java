@@ -0,0 +1,110 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelTypeAdapter;
+import com.aitorvs.autoparcel.adapters.BigDecimalTypeAdapter;
+import com.aitorvs.autoparcel.adapters.BigIntegerTypeAdapter;
+import com.aitorvs.autoparcel.adapters.CurrencyTypeAdapter;
+import com.aitorvs.autoparcel.adapters.DateTypeAdapter;
+import com.aitorvs.autoparcel.adapters.LocaleTypeAdapter;
+import com.aitorvs.autoparcel.adapters.UuidTypeAdapter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Currency;
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The {@code java.time} adapters are left out, the sample app compiles against API level 24
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class BuiltInAdaptersTest {
+
+    @Test
+    public void roundTrip() {
+        Invoice invoice = new AutoParcel_Invoice(UUID.randomUUID(), new Date(1476871200000L),
+                new BigDecimal("-12345.6789"), new BigInteger("-123456789012345678901234567890"),
+                Currency.getInstance("EUR"), new Locale("es", "ES"));
+
+        Invoice result = Parcels.roundTrip(invoice, AutoParcel_Invoice.CREATOR);
+        assertEquals(invoice, result);
+    }
+
+    @Test
+    public void roundTripExtremes() {
+        Invoice invoice = new AutoParcel_Invoice(new UUID(Long.MIN_VALUE, Long.MAX_VALUE), new Date(Long.MIN_VALUE),
+                BigDecimal.ZERO, BigInteger.ZERO, Currency.getInstance("JPY"), null);
+
+        Invoice result = Parcels.roundTrip(invoice, AutoParcel_Invoice.CREATOR);
+        assertEquals(invoice, result);
+        assertNull(result.locale);
+    }
+
+    @Test
+    @Config(manifest = Config.NONE, sdk = 19)
+    public void roundTripLocaleBeforeLanguageTags() {
+        Locale locale = new Locale("pt", "BR");
+        assertEquals(locale, roundTrip(LocaleTypeAdapter.INSTANCE, locale));
+    }
+
+    @Test
+    public void smallerThanSerializable() {
+        assertSmallerThanSerializable(UuidTypeAdapter.INSTANCE, UUID.randomUUID());
+        assertSmallerThanSerializable(DateTypeAdapter.INSTANCE, new Date());
+        assertSmallerThanSerializable(BigDecimalTypeAdapter.INSTANCE, new BigDecimal("12345.6789"));
+        assertSmallerThanSerializable(BigIntegerTypeAdapter.INSTANCE, new BigInteger("123456789012345678901234567890"));
+        assertSmallerThanSerializable(CurrencyTypeAdapter.INSTANCE, Currency.getInstance("EUR"));
+        assertSmallerThanSerializable(LocaleTypeAdapter.INSTANCE, Locale.US);
+    }
+
+    private static <T> T roundTrip(ParcelTypeAdapter<T> adapter, T value) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            adapter.toParcel(value, parcel);
+            parcel.setDataPosition(0);
+            return adapter.fromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static <T extends Serializable> void assertSmallerThanSerializable(ParcelTypeAdapter<T> adapter, T value) {
+        Parcel adapted = Parcel.obtain();
+        adapter.toParcel(value, adapted);
+        Parcel serialized = Parcel.obtain();
+        serialized.writeSerializable(value);
+        assertTrue(value + ": " + adapted.dataSize() + " bytes", adapted.dataSize() < serialized.dataSize());
+        adapted.recycle();
+        serialized.recycle();
+    }
+}
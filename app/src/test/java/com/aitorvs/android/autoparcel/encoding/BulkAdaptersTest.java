@@ -0,0 +1,68 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class BulkAdaptersTest {
+
+    @Test
+    public void roundTrip() {
+        List<Date> edits = Arrays.asList(new Date(0), null, new Date(1476871200000L));
+        Date[] reminders = {null, new Date(-1)};
+
+        Timeline result = Parcels.roundTrip(new AutoParcel_Timeline(edits, reminders), AutoParcel_Timeline.CREATOR);
+        assertEquals(edits, result.edits);
+        assertArrayEquals(reminders, result.reminders);
+    }
+
+    @Test
+    public void roundTripEmptyAndNull() {
+        Timeline result = Parcels.roundTrip(new AutoParcel_Timeline(Collections.<Date>emptyList(), null),
+                AutoParcel_Timeline.CREATOR);
+        assertEquals(0, result.edits.size());
+        assertNull(result.reminders);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsForgedSize() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeInt(Integer.MAX_VALUE);
+        parcel.writeBooleanArray(new boolean[0]);
+        parcel.writeLongArray(new long[0]);
+        parcel.setDataPosition(0);
+        AutoParcel_Timeline.CREATOR.createFromParcel(parcel);
+    }
+}
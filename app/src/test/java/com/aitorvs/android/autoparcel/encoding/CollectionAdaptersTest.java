@@ -0,0 +1,109 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.util.SparseIntArray;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class CollectionAdaptersTest {
+
+    @Test
+    public void roundTrip() {
+        UUID[] ids = {new UUID(1, 2), null};
+        Map<Locale, BigDecimal> prices = new HashMap<>();
+        prices.put(Locale.FRANCE, new BigDecimal("12.50"));
+        prices.put(Locale.US, null);
+        LinkedHashMap<String, Date> updated = new LinkedHashMap<>();
+        updated.put("z", new Date(9));
+        updated.put("a", new Date(1));
+        updated.put(null, null);
+        EnumMap<PriceList.Region, Date> launches = new EnumMap<>(PriceList.Region.class);
+        launches.put(PriceList.Region.ASIA, new Date(3));
+        launches.put(PriceList.Region.EUROPE, null);
+        ArrayList<Integer> discounts = new ArrayList<>(Arrays.asList(5, null, 0));
+        SparseIntArray stock = new SparseIntArray();
+        stock.put(3, 30);
+        stock.put(1, 10);
+
+        PriceList result = Parcels.roundTrip(
+                new AutoParcel_PriceList(ids, prices, updated, launches, discounts, stock),
+                AutoParcel_PriceList.CREATOR);
+        assertArrayEquals(ids, result.ids);
+        assertEquals(prices, result.prices);
+        assertEquals(updated, result.updated);
+        assertEquals(new ArrayList<>(updated.keySet()), new ArrayList<>(result.updated.keySet()));
+        assertEquals(launches, result.launches);
+        assertEquals(discounts, result.discounts);
+        assertEquals(2, result.stock.size());
+        assertEquals(10, result.stock.get(1));
+        assertEquals(30, result.stock.get(3));
+    }
+
+    @Test
+    public void writesElementsThroughAdapter() {
+        SparseIntArray stock = new SparseIntArray();
+        stock.put(2, 7);
+        AutoParcel_PriceList list = new AutoParcel_PriceList(new UUID[0], new HashMap<Locale, BigDecimal>(),
+                new LinkedHashMap<String, Date>(), new EnumMap<PriceList.Region, Date>(PriceList.Region.class),
+                new ArrayList<>(Arrays.asList(5, null)), stock);
+
+        Parcel parcel = Parcel.obtain();
+        list.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        int[] written = new int[parcel.dataSize() / 4];
+        for (int i = 0; i < written.length; i++) {
+            written[i] = parcel.readInt();
+        }
+        parcel.recycle();
+
+        // version, three empty sizes and the enum map key bits, then sizes, null markers, keys
+        // and the values plus one
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 0, 2, 0, 6, 1, 1, 2, 8}, written);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsForgedSize() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeInt(Integer.MAX_VALUE / 2);
+        parcel.writeInt(1);
+        parcel.setDataPosition(0);
+        AutoParcel_PriceList.CREATOR.createFromParcel(parcel);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.util.ArrayMap;
+import android.util.SparseIntArray;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class CompactCollectionsTest {
+
+    @Test
+    public void roundTrip() {
+        SparseIntArray unread = new SparseIntArray();
+        unread.put(-3, 7);
+        unread.put(12, 0);
+        unread.put(400, Integer.MAX_VALUE);
+        ArrayMap<String, String> drafts = new ArrayMap<>();
+        drafts.put("to", "hi");
+        drafts.put("cc", null);
+
+        Inbox result = Parcels.roundTrip(new AutoParcel_Inbox(unread, drafts), AutoParcel_Inbox.CREATOR);
+        assertEquals(unread.size(), result.unread.size());
+        for (int i = 0; i < unread.size(); i++) {
+            assertEquals(unread.keyAt(i), result.unread.keyAt(i));
+            assertEquals(unread.valueAt(i), result.unread.valueAt(i));
+        }
+        assertEquals(drafts, result.drafts);
+    }
+
+    @Test
+    public void roundTripEmptyAndNull() {
+        Inbox result = Parcels.roundTrip(new AutoParcel_Inbox(new SparseIntArray(), null), AutoParcel_Inbox.CREATOR);
+        assertEquals(0, result.unread.size());
+        assertNull(result.drafts);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsForgedSize() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeInt(Integer.MAX_VALUE / 2);
+        parcel.writeInt(1);
+        parcel.setDataPosition(0);
+        AutoParcel_Inbox.CREATOR.createFromParcel(parcel);
+    }
+}
@@ -0,0 +1,148 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.CompressedValues;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class CompressedValuesTest {
+
+    @Test
+    public void roundTrip() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"caf\u00e9 \u2603\"},");
+        }
+        byte[] data = new byte[10000];
+        Arrays.fill(data, (byte) 42);
+        Payload payload = new AutoParcel_Payload(json.append("]").toString(), data);
+
+        Payload result = Parcels.roundTrip(payload, AutoParcel_Payload.CREATOR);
+        assertEquals(payload, result);
+        assertTrue("compressed size " + Parcels.sizeOf(payload), Parcels.sizeOf(payload) < json.length());
+    }
+
+    @Test
+    public void roundTripSmallAndNull() {
+        Payload payload = new AutoParcel_Payload("{}", null);
+
+        Payload result = Parcels.roundTrip(payload, AutoParcel_Payload.CREATOR);
+        assertEquals("{}", result.json);
+        assertNull(result.data);
+    }
+
+    @Test
+    public void roundTripIncompressibleString() {
+        // too short and random to shrink
+        Random random = new Random(42);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            value.append((char) ('!' + random.nextInt(94)));
+        }
+        Parcel parcel = Parcel.obtain();
+        CompressedValues.writeString(parcel, value.toString(), 64);
+        parcel.setDataPosition(0);
+        assertEquals(0, parcel.readInt());
+        assertEquals(value.toString(), parcel.readString());
+        parcel.recycle();
+    }
+
+    @Test
+    public void replacesUnpairedSurrogates() {
+        StringBuilder value = new StringBuilder("\ud83d");
+        for (int i = 0; i < 100; i++) {
+            value.append("abc");
+        }
+        Parcel parcel = Parcel.obtain();
+        CompressedValues.writeString(parcel, value.toString(), 64);
+        parcel.setDataPosition(0);
+        assertEquals("?" + value.substring(1), CompressedValues.readString(parcel));
+        parcel.recycle();
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsUnknownFlag() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(2);
+        parcel.writeInt(3);
+        parcel.writeByteArray(new byte[]{1, 2, 3});
+        parcel.setDataPosition(0);
+        CompressedValues.createByteArray(parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsForgedLength() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(1);
+        parcel.writeInt(Integer.MAX_VALUE - 8);
+        parcel.writeByteArray(new byte[]{1, 2, 3});
+        parcel.setDataPosition(0);
+        CompressedValues.createByteArray(parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsTruncatedValue() {
+        byte[] compressed = deflate(new byte[1000], null);
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(1);
+        parcel.writeInt(1000);
+        parcel.writeByteArray(compressed, 0, compressed.length / 2);
+        parcel.setDataPosition(0);
+        CompressedValues.readString(parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsValueNeedingDictionary() {
+        byte[] compressed = deflate("abcabc".getBytes(), "abc".getBytes());
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(1);
+        parcel.writeInt(6);
+        parcel.writeByteArray(compressed);
+        parcel.setDataPosition(0);
+        CompressedValues.createByteArray(parcel);
+    }
+
+    private static byte[] deflate(byte[] value, byte[] dictionary) {
+        Deflater deflater = new Deflater();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(value);
+        deflater.finish();
+        byte[] buffer = new byte[value.length + 64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+}
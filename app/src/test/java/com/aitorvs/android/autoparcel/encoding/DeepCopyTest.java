@@ -0,0 +1,72 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class DeepCopyTest {
+
+    @Test
+    public void copiesNestedValues() {
+        Map<String, Stop> byName = new TreeMap<>();
+        byName.put("b", new AutoParcel_Stop("b", new long[]{2}));
+        byName.put("a", new AutoParcel_Stop("a", null));
+        HashMap<String, Integer> visits = new HashMap<>();
+        visits.put("a", 3);
+        AutoParcel_Itinerary itinerary = new AutoParcel_Itinerary(
+                new ArrayList<Stop>(Arrays.<Stop>asList(new AutoParcel_Stop("first", new long[]{1}), null)),
+                new Stop[]{new AutoParcel_Stop("other", null)}, byName, visits, new long[]{10, 20});
+
+        AutoParcel_Itinerary copy = itinerary.deepCopy();
+        assertEquals(itinerary, copy);
+        assertNotSame(itinerary.stops, copy.stops);
+        assertNotSame(itinerary.stops.get(0), copy.stops.get(0));
+        assertNotSame(itinerary.stops.get(0).times, copy.stops.get(0).times);
+        assertNotSame(itinerary.alternatives, copy.alternatives);
+        assertNotSame(itinerary.alternatives[0], copy.alternatives[0]);
+        assertNotSame(itinerary.byName, copy.byName);
+        assertNotSame(itinerary.byName.get("b"), copy.byName.get("b"));
+        assertEquals("a", copy.byName.keySet().iterator().next());
+        assertNotSame(itinerary.visits, copy.visits);
+        assertNotSame(itinerary.departures, copy.departures);
+    }
+
+    @Test
+    public void copiesNulls() {
+        AutoParcel_Itinerary copy = new AutoParcel_Itinerary(null, null, null, null, null).deepCopy();
+        assertNull(copy.stops);
+        assertNull(copy.alternatives);
+        assertNull(copy.byName);
+        assertNull(copy.visits);
+        assertNull(copy.departures);
+    }
+}
@@ -0,0 +1,84 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class DeltaEncodingTest {
+
+    @Test
+    public void roundTrip() {
+        AutoParcel_UiState base = new AutoParcel_UiState(10, null, false, new long[]{1, 2, 3});
+        AutoParcel_UiState next = new AutoParcel_UiState(42, "query", false, base.selection);
+
+        Parcel parcel = Parcel.obtain();
+        next.writeDeltaToParcel(base, parcel, 0);
+        assertTrue(parcel.dataSize() < Parcels.sizeOf(next));
+        parcel.setDataPosition(0);
+
+        UiState result = AutoParcel_UiState.applyDelta(base, parcel);
+        assertEquals(next, result);
+        assertEquals(0, parcel.dataAvail());
+        // unchanged values are shared with base
+        assertSame(base.selection, result.selection);
+        parcel.recycle();
+    }
+
+    @Test
+    public void roundTripWithoutChanges() {
+        AutoParcel_UiState base = new AutoParcel_UiState(10, "query", true, null);
+
+        Parcel parcel = Parcel.obtain();
+        base.writeDeltaToParcel(base, parcel, 0);
+        parcel.setDataPosition(0);
+        assertEquals(base, AutoParcel_UiState.applyDelta(base, parcel));
+        parcel.recycle();
+    }
+
+    @Test
+    public void roundTripFieldNamedBase() {
+        AutoParcel_Revision base = new AutoParcel_Revision("main", 1);
+        AutoParcel_Revision next = new AutoParcel_Revision("release", 2);
+
+        Parcel parcel = Parcel.obtain();
+        next.writeDeltaToParcel(base, parcel, 0);
+        parcel.setDataPosition(0);
+        assertEquals(next, AutoParcel_Revision.applyDelta(base, parcel));
+        parcel.recycle();
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsOtherVersion() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(2);
+        parcel.writeInt(0);
+        parcel.setDataPosition(0);
+        AutoParcel_UiState.applyDelta(new AutoParcel_UiState(0, null, false, null), parcel);
+    }
+}
@@ -0,0 +1,74 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class DerivedFieldsTest {
+
+    @Test
+    public void writesOnlyStoredFields() {
+        AutoParcel_Contact contact = new AutoParcel_Contact("Ada", "Lovelace");
+        contact.displayName();
+
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeString("Ada");
+        parcel.writeString("Lovelace");
+        assertEquals(parcel.dataSize(), Parcels.sizeOf(contact));
+        parcel.recycle();
+
+        Contact result = Parcels.roundTrip(contact, AutoParcel_Contact.CREATOR);
+        assertEquals(contact, result);
+        assertNull(result.displayName);
+        assertEquals(0, result.lookups);
+    }
+
+    @Test
+    public void readFromParcelResetsDerivedFields() {
+        AutoParcel_Contact contact = new AutoParcel_Contact("Ada", "Lovelace");
+        assertEquals("Ada Lovelace", contact.displayName());
+        Parcel parcel = Parcel.obtain();
+        new AutoParcel_Contact("Alan", "Turing").writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+
+        contact.readFromParcel(parcel);
+        assertEquals("Alan Turing", contact.displayName());
+        parcel.recycle();
+    }
+
+    @Test
+    public void ignoresDerivedFieldsInEquality() {
+        AutoParcel_Contact contact = new AutoParcel_Contact("Ada", "Lovelace");
+        AutoParcel_Contact other = new AutoParcel_Contact("Ada", "Lovelace");
+        contact.displayName();
+
+        assertEquals(contact, other);
+        assertEquals(contact.hashCode(), other.hashCode());
+        assertNull(contact.deepCopy().displayName);
+    }
+}
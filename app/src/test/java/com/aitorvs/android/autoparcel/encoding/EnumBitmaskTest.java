@@ -0,0 +1,82 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import com.aitorvs.android.autoparcel.encoding.Permissions.Access;
+import com.aitorvs.android.autoparcel.encoding.Permissions.Channel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class EnumBitmaskTest {
+
+    @Test
+    public void roundTrip() {
+        EnumMap<Access, String> reasons = new EnumMap<>(Access.class);
+        reasons.put(Access.WRITE, "owner");
+        reasons.put(Access.EXECUTE, null);
+        Permissions permissions = new AutoParcel_Permissions(EnumSet.of(Access.READ, Access.EXECUTE),
+                EnumSet.noneOf(Access.class), reasons, EnumSet.of(Channel.C0, Channel.C63, Channel.C64, Channel.C69));
+
+        Permissions result = Parcels.roundTrip(permissions, AutoParcel_Permissions.CREATOR);
+        assertEquals(permissions, result);
+    }
+
+    @Test
+    public void roundTripNull() {
+        Permissions permissions = new AutoParcel_Permissions(EnumSet.allOf(Access.class), null,
+                new EnumMap<Access, String>(Access.class), EnumSet.allOf(Channel.class));
+
+        Permissions result = Parcels.roundTrip(permissions, AutoParcel_Permissions.CREATOR);
+        assertEquals(permissions, result);
+        assertNull(result.denied);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsUnknownOrdinal() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeLong(1L << 5);
+        parcel.setDataPosition(0);
+        AutoParcel_Permissions.CREATOR.createFromParcel(parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsForgedWordCount() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeLong(1L);
+        parcel.writeInt(1);
+        parcel.writeLong(0L);
+        parcel.writeInt(Integer.MAX_VALUE);
+        parcel.setDataPosition(0);
+        AutoParcel_Permissions.CREATOR.createFromParcel(parcel);
+    }
+}
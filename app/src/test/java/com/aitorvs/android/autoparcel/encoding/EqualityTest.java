@@ -0,0 +1,81 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class EqualityTest {
+
+    @Test
+    public void comparesFieldsAndArrayContents() {
+        AutoParcel_Route route = new AutoParcel_Route(7, new int[]{1}, Arrays.asList("a"),
+                new AutoParcel_Stop("end", new long[]{4}));
+        AutoParcel_Route copy = route.deepCopy();
+        assertEquals(route, copy);
+        assertEquals(route.hashCode(), copy.hashCode());
+
+        copy.last.times[0] = 5;
+        assertNotEquals(route, copy);
+        copy.last.times[0] = 4;
+        copy.stopIds[0] = 2;
+        assertNotEquals(route, copy);
+        assertFalse(route.equals(null));
+    }
+
+    @Test
+    public void cachesHashCode() {
+        AutoParcel_Item first = new AutoParcel_Item("a", new long[]{1, 2}, 0.5);
+        AutoParcel_Item second = new AutoParcel_Item("a", new long[]{1, 2}, 0.5);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        Set<Item> items = new HashSet<>();
+        items.add(first);
+        assertTrue(items.contains(second));
+    }
+
+    @Test
+    public void readFromParcelResetsCachedHashCode() {
+        AutoParcel_Item item = new AutoParcel_Item("a", null, 0.5);
+        int hashCode = item.hashCode();
+        AutoParcel_Item other = new AutoParcel_Item("b", new long[]{3}, 1);
+        Parcel parcel = Parcel.obtain();
+        other.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+
+        item.readFromParcel(parcel);
+        assertEquals(other, item);
+        assertEquals(other.hashCode(), item.hashCode());
+        assertNotEquals(hashCode, item.hashCode());
+        parcel.recycle();
+    }
+}
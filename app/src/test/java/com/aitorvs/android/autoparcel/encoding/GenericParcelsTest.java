@@ -0,0 +1,67 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class GenericParcelsTest {
+
+    @Test
+    public void roundTrip() {
+        AutoParcel_Stop first = new AutoParcel_Stop("first", new long[]{1});
+        AutoParcel_Stop last = new AutoParcel_Stop("last", null);
+        AutoParcel_Page<AutoParcel_Stop> page = new AutoParcel_Page<>(2, Arrays.asList(first, last), first,
+                new AutoParcel_Stop[]{last});
+
+        AutoParcel_Page<AutoParcel_Stop> result = Parcels.roundTrip(page, AutoParcel_Page.creator(AutoParcel_Stop.CREATOR));
+        assertEquals(page, result);
+        assertEquals(first, result.selected);
+        assertEquals(AutoParcel_Stop[].class, result.pinned.getClass());
+    }
+
+    @Test
+    public void roundTripNulls() {
+        AutoParcel_Page<AutoParcel_Stop> result = Parcels.roundTrip(new AutoParcel_Page<AutoParcel_Stop>(0, null, null, null),
+                AutoParcel_Page.creator(AutoParcel_Stop.CREATOR));
+        assertNull(result.items);
+        assertNull(result.selected);
+        assertNull(result.pinned);
+    }
+
+    @Test
+    public void smallerThanWriteParcelable() {
+        AutoParcel_Stop stop = new AutoParcel_Stop("stop", null);
+        AutoParcel_Page<AutoParcel_Stop> page = new AutoParcel_Page<>(0, null, stop, null);
+        Parcel parcel = Parcel.obtain();
+        parcel.writeParcelable(stop, 0);
+        assertTrue(Parcels.sizeOf(page) < parcel.dataSize() + Parcels.sizeOf(new AutoParcel_Page<AutoParcel_Stop>(0, null, null, null)));
+        parcel.recycle();
+    }
+}
@@ -0,0 +1,86 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+
+import com.aitorvs.autoparcel.AutoParcel;
+import com.aitorvs.autoparcel.ContextParcelTypeAdapter;
+import com.aitorvs.autoparcel.ParcelAdapter;
+import com.aitorvs.autoparcel.ParcelContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@AutoParcel
+public abstract class Glossary implements Parcelable {
+    @ParcelAdapter(TableAdapter.class)
+    public String title;
+
+    @ParcelAdapter(element = TableAdapter.class)
+    public List<String> tags;
+
+    @Nullable
+    public Term first;
+
+    @Nullable
+    public Term second;
+
+    /**
+     * Writes each string once and then its index in a table kept in the context
+     */
+    public static final class TableAdapter implements ContextParcelTypeAdapter<String> {
+        public static final TableAdapter INSTANCE = new TableAdapter();
+
+        @Override
+        public String fromParcel(Parcel in, ParcelContext context) {
+            List<String> table = context.get(TableAdapter.class);
+            if (table == null) {
+                table = new ArrayList<>();
+                context.put(TableAdapter.class, table);
+            }
+            int index = in.readInt();
+            if (index >= 0) {
+                return table.get(index);
+            }
+            String value = in.readString();
+            table.add(value);
+            return value;
+        }
+
+        @Override
+        public void toParcel(String value, Parcel dest, ParcelContext context) {
+            Map<String, Integer> table = context.get(TableAdapter.class);
+            if (table == null) {
+                table = new HashMap<>();
+                context.put(TableAdapter.class, table);
+            }
+            Integer index = table.get(value);
+            if (index != null) {
+                dest.writeInt(index);
+                return;
+            }
+            dest.writeInt(-1);
+            dest.writeString(value);
+            table.put(value, table.size());
+        }
+    }
+}
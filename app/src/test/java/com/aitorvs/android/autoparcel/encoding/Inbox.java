@@ -0,0 +1,32 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+import android.util.ArrayMap;
+import android.util.SparseIntArray;
+
+import com.aitorvs.autoparcel.AutoParcel;
+
+@AutoParcel
+public abstract class Inbox implements Parcelable {
+    public SparseIntArray unread;
+
+    @Nullable
+    public ArrayMap<String, String> drafts;
+}
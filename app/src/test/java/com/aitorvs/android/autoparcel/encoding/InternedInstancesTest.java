@@ -0,0 +1,49 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class InternedInstancesTest {
+
+    @Test
+    public void returnsCanonicalInstances() {
+        CurrencyPair first = Parcels.roundTrip(new AutoParcel_CurrencyPair("EUR", "USD"), AutoParcel_CurrencyPair.CREATOR);
+        CurrencyPair second = Parcels.roundTrip(new AutoParcel_CurrencyPair("EUR", "USD"), AutoParcel_CurrencyPair.CREATOR);
+
+        assertEquals(new AutoParcel_CurrencyPair("EUR", "USD"), first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void keepsDistinctValues() {
+        CurrencyPair first = Parcels.roundTrip(new AutoParcel_CurrencyPair("EUR", "USD"), AutoParcel_CurrencyPair.CREATOR);
+        CurrencyPair second = Parcels.roundTrip(new AutoParcel_CurrencyPair("USD", "EUR"), AutoParcel_CurrencyPair.CREATOR);
+
+        assertEquals("USD", second.base);
+        assertNotSame(first, second);
+    }
+}
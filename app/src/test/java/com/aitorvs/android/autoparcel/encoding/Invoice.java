@@ -0,0 +1,58 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+
+import com.aitorvs.autoparcel.AutoParcel;
+import com.aitorvs.autoparcel.ParcelAdapter;
+import com.aitorvs.autoparcel.adapters.BigDecimalTypeAdapter;
+import com.aitorvs.autoparcel.adapters.BigIntegerTypeAdapter;
+import com.aitorvs.autoparcel.adapters.CurrencyTypeAdapter;
+import com.aitorvs.autoparcel.adapters.DateTypeAdapter;
+import com.aitorvs.autoparcel.adapters.LocaleTypeAdapter;
+import com.aitorvs.autoparcel.adapters.UuidTypeAdapter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Currency;
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+
+@AutoParcel
+public abstract class Invoice implements Parcelable {
+    @ParcelAdapter(UuidTypeAdapter.class)
+    public UUID id;
+
+    @ParcelAdapter(DateTypeAdapter.class)
+    public Date issued;
+
+    @ParcelAdapter(BigDecimalTypeAdapter.class)
+    public BigDecimal total;
+
+    @ParcelAdapter(BigIntegerTypeAdapter.class)
+    public BigInteger serial;
+
+    @ParcelAdapter(CurrencyTypeAdapter.class)
+    public Currency currency;
+
+    @ParcelAdapter(LocaleTypeAdapter.class)
+    @Nullable
+    public Locale locale;
+}
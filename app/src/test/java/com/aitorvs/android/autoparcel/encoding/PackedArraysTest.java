@@ -0,0 +1,118 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.PackedArrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class PackedArraysTest {
+
+    @Test
+    public void roundTrip() {
+        long[] timestamps = new long[1000];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1476871200000L + i * 1000L;
+        }
+        Series series = new AutoParcel_Series(timestamps,
+                new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -5, 5});
+
+        Series result = Parcels.roundTrip(series, AutoParcel_Series.CREATOR);
+        assertEquals(series, result);
+        assertTrue("packed size " + Parcels.sizeOf(series), Parcels.sizeOf(series) < timestamps.length * 3);
+    }
+
+    @Test
+    public void smallerThanPlainArrays() {
+        long[] timestamps = new long[1000];
+        int[] ids = new int[1000];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1476871200000L + i * 1000L;
+            ids[i] = 5000 + i * 3;
+        }
+        Parcel plain = Parcel.obtain();
+        plain.writeLongArray(timestamps);
+        plain.writeIntArray(ids);
+        Parcel packed = Parcel.obtain();
+        PackedArrays.writeLongArray(packed, timestamps);
+        PackedArrays.writeIntArray(packed, ids);
+        // two bytes per timestamp and one per id, plus the lengths
+        assertTrue("packed " + packed.dataSize() + " plain " + plain.dataSize(),
+                packed.dataSize() * 3 < plain.dataSize());
+        plain.recycle();
+        packed.recycle();
+    }
+
+    @Test
+    public void roundTripNullAndEmpty() {
+        Series series = new AutoParcel_Series(new long[0], null);
+
+        Series result = Parcels.roundTrip(series, AutoParcel_Series.CREATOR);
+        assertArrayEquals(new long[0], result.timestamps);
+        assertNull(result.ids);
+    }
+
+    @Test
+    public void roundTripExtremes() {
+        long[] values = {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MIN_VALUE};
+        Parcel parcel = Parcel.obtain();
+        PackedArrays.writeLongArray(parcel, values);
+        parcel.setDataPosition(0);
+        assertArrayEquals(values, PackedArrays.createLongArray(parcel));
+        parcel.recycle();
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsMoreElementsThanBytes() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(5);
+        parcel.writeByteArray(new byte[]{1});
+        parcel.setDataPosition(0);
+        PackedArrays.createIntArray(parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsTruncatedVarint() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(1);
+        parcel.writeByteArray(new byte[]{(byte) 0x80});
+        parcel.setDataPosition(0);
+        PackedArrays.createLongArray(parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsOverlongVarint() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(1);
+        parcel.writeByteArray(new byte[]{-1, -1, -1, -1, -1, -1, 1});
+        parcel.setDataPosition(0);
+        PackedArrays.createIntArray(parcel);
+    }
+}
@@ -0,0 +1,100 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.aitorvs.autoparcel.ParcelContext;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class ParcelContextTest {
+    private static final String WORD = "a fairly long repeated string value";
+
+    @Test
+    public void roundTripSharesTableWithNestedObjects() {
+        AutoParcel_Glossary glossary = new AutoParcel_Glossary(WORD, Arrays.asList(WORD, "x", null, WORD),
+                new AutoParcel_Term(WORD, 1), new AutoParcel_Term(WORD, 2));
+
+        Glossary result = Parcels.roundTrip(glossary, AutoParcel_Glossary.CREATOR);
+        assertEquals(glossary, result);
+        assertNull(ParcelContext.current());
+    }
+
+    @Test
+    public void writesRepeatedValuesOnce() {
+        AutoParcel_Glossary shared = new AutoParcel_Glossary(WORD, Collections.singletonList(WORD),
+                new AutoParcel_Term(WORD, 1), null);
+        AutoParcel_Glossary distinct = new AutoParcel_Glossary(WORD, Collections.singletonList(WORD + "1"),
+                new AutoParcel_Term(WORD + "2", 1), null);
+
+        // each repeat takes its index instead of the string
+        int repeatedSize = Parcels.sizeOf(distinct) - Parcels.sizeOf(shared);
+        assertTrue(repeatedSize >= 2 * WORD.length() * 2);
+    }
+
+    @Test
+    public void startsEachWriteWithEmptyTable() {
+        AutoParcel_Glossary glossary = new AutoParcel_Glossary(WORD, Collections.singletonList(WORD), null, null);
+
+        assertEquals(Parcels.sizeOf(glossary), Parcels.sizeOf(glossary));
+        assertEquals(glossary, Parcels.roundTrip(glossary, AutoParcel_Glossary.CREATOR));
+        assertEquals(glossary, Parcels.roundTrip(glossary, AutoParcel_Glossary.CREATOR));
+    }
+
+    @Test
+    public void roundTripNestedClassAlone() {
+        Term result = Parcels.roundTrip(new AutoParcel_Term(WORD, 3), AutoParcel_Term.CREATOR);
+        assertEquals(WORD, result.word);
+        assertEquals(3, result.count);
+    }
+
+    @Test
+    public void outermostExitClearsCache() {
+        ParcelContext context = ParcelContext.enter();
+        assertSame(context, ParcelContext.enter());
+        assertEquals(2, context.depth());
+        context.put(ParcelContextTest.class, WORD);
+
+        context.exit();
+        assertSame(context, ParcelContext.current());
+        assertEquals(WORD, context.<String>get(ParcelContextTest.class));
+
+        context.exit();
+        assertNull(ParcelContext.current());
+        assertNull(ParcelContext.enter().get(ParcelContextTest.class));
+        ParcelContext.current().exit();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsExitWithoutEnter() {
+        ParcelContext context = ParcelContext.enter();
+        context.exit();
+        context.exit();
+    }
+}
@@ -0,0 +1,60 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Helpers to write and read back parcels in tests
+ */
+final class Parcels {
+
+    private Parcels() {
+    }
+
+    /**
+     * Writes the value and reads it back with the creator, checking the whole parcel is read
+     */
+    static <T> T roundTrip(Parcelable value, Parcelable.Creator<T> creator) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            value.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            T result = creator.createFromParcel(parcel);
+            assertEquals("bytes left", 0, parcel.dataAvail());
+            return result;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * @return the number of bytes the value takes in a parcel
+     */
+    static int sizeOf(Parcelable value) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            value.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+
+import com.aitorvs.autoparcel.AutoParcel;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+@AutoParcel
+public abstract class Permissions implements Parcelable {
+    public enum Access { READ, WRITE, EXECUTE }
+
+    // more than 64 constants, written as several bitmask words
+    public enum Channel {
+        C0, C1, C2, C3, C4, C5, C6, C7, C8, C9, C10, C11, C12, C13, C14, C15, C16, C17, C18, C19, C20, C21,
+        C22, C23, C24, C25, C26, C27, C28, C29, C30, C31, C32, C33, C34, C35, C36, C37, C38, C39, C40, C41,
+        C42, C43, C44, C45, C46, C47, C48, C49, C50, C51, C52, C53, C54, C55, C56, C57, C58, C59, C60, C61,
+        C62, C63, C64, C65, C66, C67, C68, C69
+    }
+
+    public EnumSet<Access> granted;
+
+    @Nullable
+    public EnumSet<Access> denied;
+
+    public EnumMap<Access, String> reasons;
+
+    public EnumSet<Channel> channels;
+}
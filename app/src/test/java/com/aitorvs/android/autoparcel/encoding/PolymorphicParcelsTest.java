@@ -0,0 +1,71 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class PolymorphicParcelsTest {
+
+    @Test
+    public void roundTrip() {
+        Drawing drawing = new AutoParcel_Drawing(new AutoParcel_Circle(3, 1.5f), new AutoParcel_Square(4, 2));
+
+        Drawing result = Parcels.roundTrip(drawing, AutoParcel_Drawing.CREATOR);
+        assertEquals(drawing, result);
+        assertTrue(result.main instanceof AutoParcel_Circle);
+        assertTrue(result.other instanceof AutoParcel_Square);
+        assertEquals(4, result.other.color);
+    }
+
+    @Test
+    public void roundTripNull() {
+        Drawing result = Parcels.roundTrip(new AutoParcel_Drawing(new AutoParcel_Square(1, 1), null),
+                AutoParcel_Drawing.CREATOR);
+        assertNull(result.other);
+    }
+
+    @Test
+    public void smallerThanWriteParcelable() {
+        Shape main = new AutoParcel_Circle(3, 1.5f);
+        Shape other = new AutoParcel_Square(4, 2);
+        Parcel parcel = Parcel.obtain();
+        parcel.writeParcelable(main, 0);
+        parcel.writeParcelable(other, 0);
+        assertTrue(Parcels.sizeOf(new AutoParcel_Drawing(main, other)) < parcel.dataSize());
+        parcel.recycle();
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsUnknownTag() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(2);
+        parcel.setDataPosition(0);
+        AutoParcel_Shape.read(parcel);
+    }
+}
@@ -0,0 +1,61 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class PooledInstancesTest {
+
+    @Test
+    public void reusesRecycledInstances() {
+        AutoParcel_TouchEvent event = new AutoParcel_TouchEvent(2, 1476871200000L, new int[]{0, 1});
+        Parcel parcel = Parcel.obtain();
+        event.writeToParcel(parcel, 0);
+
+        parcel.setDataPosition(0);
+        AutoParcel_TouchEvent first = AutoParcel_TouchEvent.CREATOR.createFromParcel(parcel);
+        assertEquals(event, first);
+        first.recycle();
+        assertEquals(0, first.action);
+        assertNull(first.pointerIds);
+
+        parcel.setDataPosition(0);
+        TouchEvent second = AutoParcel_TouchEvent.CREATOR.createFromParcel(parcel);
+        assertSame(first, second);
+        assertEquals(event, second);
+        parcel.recycle();
+    }
+
+    @Test
+    public void createsInstancesWhenEmpty() {
+        AutoParcel_TouchEvent first = AutoParcel_TouchEvent.obtain();
+        AutoParcel_TouchEvent second = AutoParcel_TouchEvent.obtain();
+        assertNotSame(first, second);
+    }
+}
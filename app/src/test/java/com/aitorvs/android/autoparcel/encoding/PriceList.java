@@ -0,0 +1,61 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcelable;
+import android.util.SparseIntArray;
+
+import com.aitorvs.autoparcel.AutoParcel;
+import com.aitorvs.autoparcel.ParcelAdapter;
+import com.aitorvs.autoparcel.adapters.BigDecimalTypeAdapter;
+import com.aitorvs.autoparcel.adapters.DateTypeAdapter;
+import com.aitorvs.autoparcel.adapters.LocaleTypeAdapter;
+import com.aitorvs.autoparcel.adapters.UuidTypeAdapter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+@AutoParcel
+public abstract class PriceList implements Parcelable {
+    public enum Region {
+        EUROPE, AMERICA, ASIA
+    }
+
+    @ParcelAdapter(element = UuidTypeAdapter.class)
+    public UUID[] ids;
+
+    @ParcelAdapter(key = LocaleTypeAdapter.class, mapValue = BigDecimalTypeAdapter.class)
+    public Map<Locale, BigDecimal> prices;
+
+    @ParcelAdapter(mapValue = DateTypeAdapter.class)
+    public LinkedHashMap<String, Date> updated;
+
+    @ParcelAdapter(mapValue = DateTypeAdapter.class)
+    public EnumMap<Region, Date> launches;
+
+    @ParcelAdapter(element = Quote.CentsAdapter.class)
+    public ArrayList<Integer> discounts;
+
+    @ParcelAdapter(mapValue = Quote.CentsAdapter.class)
+    public SparseIntArray stock;
+}
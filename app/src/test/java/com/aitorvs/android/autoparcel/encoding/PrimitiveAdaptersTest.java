@@ -0,0 +1,58 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class PrimitiveAdaptersTest {
+
+    @Test
+    public void roundTrip() {
+        Quote result = Parcels.roundTrip(new AutoParcel_Quote(1999, 1476871200000L, 0.5), AutoParcel_Quote.CREATOR);
+        assertEquals(1999, result.cents);
+        assertEquals(1476871200000L, result.timestamp);
+        assertEquals(0.5, result.ratio, 0);
+    }
+
+    @Test
+    public void roundTripNull() {
+        Quote result = Parcels.roundTrip(new AutoParcel_Quote(0, 0, null), AutoParcel_Quote.CREATOR);
+        assertNull(result.ratio);
+    }
+
+    @Test
+    public void writesThroughAdapters() {
+        Parcel parcel = Parcel.obtain();
+        new AutoParcel_Quote(1999, 1476871200000L, null).writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+
+        assertEquals(0, parcel.readInt());
+        assertEquals(2000, parcel.readInt());
+        assertEquals(1476871200L, parcel.readLong());
+        parcel.recycle();
+    }
+}
@@ -0,0 +1,81 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+
+import com.aitorvs.autoparcel.AutoParcel;
+import com.aitorvs.autoparcel.DoubleParcelTypeAdapter;
+import com.aitorvs.autoparcel.IntParcelTypeAdapter;
+import com.aitorvs.autoparcel.LongParcelTypeAdapter;
+import com.aitorvs.autoparcel.ParcelAdapter;
+
+@AutoParcel
+public abstract class Quote implements Parcelable {
+    @ParcelAdapter(CentsAdapter.class)
+    public int cents;
+
+    @ParcelAdapter(SecondsAdapter.class)
+    public long timestamp;
+
+    @ParcelAdapter(RatioAdapter.class)
+    @Nullable
+    public Double ratio;
+
+    /**
+     * Writes cents offset by one, so a wrong read shows up in the value
+     */
+    public static class CentsAdapter implements IntParcelTypeAdapter {
+        @Override
+        public int fromParcel(Parcel in) {
+            return in.readInt() - 1;
+        }
+
+        @Override
+        public void toParcel(int value, Parcel dest) {
+            dest.writeInt(value + 1);
+        }
+    }
+
+    public static final class SecondsAdapter implements LongParcelTypeAdapter {
+        public static final SecondsAdapter INSTANCE = new SecondsAdapter();
+
+        @Override
+        public long fromParcel(Parcel in) {
+            return in.readLong() * 1000;
+        }
+
+        @Override
+        public void toParcel(long value, Parcel dest) {
+            dest.writeLong(value / 1000);
+        }
+    }
+
+    public static class RatioAdapter implements DoubleParcelTypeAdapter {
+        @Override
+        public double fromParcel(Parcel in) {
+            return in.readDouble();
+        }
+
+        @Override
+        public void toParcel(double value, Parcel dest) {
+            dest.writeDouble(value);
+        }
+    }
+}
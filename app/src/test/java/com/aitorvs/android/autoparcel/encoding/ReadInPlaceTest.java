@@ -0,0 +1,106 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class ReadInPlaceTest {
+
+    private static Parcel write(Route route) {
+        Parcel parcel = Parcel.obtain();
+        route.writeToParcel(parcel, 0);
+        return parcel;
+    }
+
+    private static AutoParcel_Route route() {
+        return new AutoParcel_Route(7, new int[]{1, 2, 3}, new ArrayList<>(Arrays.asList("a", "b")),
+                new AutoParcel_Stop("end", new long[]{4, 5}));
+    }
+
+    @Test
+    public void keepsValuesAssignedFromOutside() {
+        Parcel parcel = write(route());
+        int[] stopIds = new int[3];
+        AutoParcel_Stop last = new AutoParcel_Stop(null, new long[2]);
+        AutoParcel_Route target = new AutoParcel_Route(0, stopIds, new ArrayList<>(Arrays.asList("old")), last);
+
+        parcel.setDataPosition(0);
+        target.readFromParcel(parcel);
+        assertEquals(route(), target);
+        assertNotSame(stopIds, target.stopIds);
+        assertArrayEquals(new int[3], stopIds);
+        assertNull(last.name);
+        parcel.recycle();
+    }
+
+    @Test
+    public void readsIntoItsOwnValues() {
+        Parcel parcel = write(route());
+        AutoParcel_Route target = new AutoParcel_Route(0, null, Collections.<String>emptyList(), null);
+        parcel.setDataPosition(0);
+        target.readFromParcel(parcel);
+        int[] stopIds = target.stopIds;
+        List<String> names = target.names;
+        Stop last = target.last;
+        long[] times = last.times;
+
+        parcel.setDataPosition(0);
+        target.readFromParcel(parcel);
+        assertEquals(route(), target);
+        assertEquals(0, parcel.dataAvail());
+        assertSame(stopIds, target.stopIds);
+        assertSame(names, target.names);
+        assertSame(last, target.last);
+        assertSame(times, target.last.times);
+        parcel.recycle();
+    }
+
+    @Test
+    public void readsNulls() {
+        Parcel parcel = write(route());
+        AutoParcel_Route target = new AutoParcel_Route(0, null, Collections.<String>emptyList(), null);
+        parcel.setDataPosition(0);
+        target.readFromParcel(parcel);
+        parcel.recycle();
+
+        parcel = write(new AutoParcel_Route(1, null, new ArrayList<String>(), null));
+        parcel.setDataPosition(0);
+        target.readFromParcel(parcel);
+        assertNull(target.stopIds);
+        assertNull(target.last);
+        assertEquals(0, target.names.size());
+        parcel.recycle();
+    }
+}
@@ -0,0 +1,84 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.AutoParcels;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class RegistryTest {
+
+    @BeforeClass
+    public static void register() {
+        AutoParcels.register(new AutoParcelRegistry());
+    }
+
+    @Test
+    public void roundTrip() {
+        AutoParcel_Stop stop = new AutoParcel_Stop("stop", new long[]{1});
+        Parcel parcel = Parcel.obtain();
+        AutoParcels.write(stop, parcel);
+        AutoParcels.write(null, parcel);
+        AutoParcels.write(new AutoParcel_Circle(1, 2f), parcel);
+
+        parcel.setDataPosition(0);
+        assertEquals(stop, AutoParcels.read(parcel));
+        assertNull(AutoParcels.read(parcel));
+        assertTrue(AutoParcels.<Shape>read(parcel) instanceof AutoParcel_Circle);
+        assertEquals(0, parcel.dataAvail());
+        parcel.recycle();
+    }
+
+    @Test
+    public void smallerThanWriteParcelable() {
+        AutoParcel_Stop stop = new AutoParcel_Stop("stop", null);
+        Parcel registered = Parcel.obtain();
+        AutoParcels.write(stop, registered);
+        Parcel parcelable = Parcel.obtain();
+        parcelable.writeParcelable(stop, 0);
+        assertTrue(registered.dataSize() < parcelable.dataSize());
+        registered.recycle();
+        parcelable.recycle();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnregisteredClass() {
+        Parcel parcel = Parcel.obtain();
+        AutoParcels.write(new AutoParcel_Page<AutoParcel_Stop>(0, null, null, null), parcel);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsUnknownId() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(42);
+        parcel.setDataPosition(0);
+        AutoParcels.read(parcel);
+    }
+}
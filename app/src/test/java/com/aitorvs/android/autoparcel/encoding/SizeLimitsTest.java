@@ -0,0 +1,77 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.ParcelSizeException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class SizeLimitsTest {
+
+    private static void read(Upload upload) {
+        Parcel parcel = Parcel.obtain();
+        upload.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        AutoParcel_Upload.CREATOR.createFromParcel(parcel);
+    }
+
+    @Test
+    public void roundTripWithinLimits() {
+        Upload upload = new AutoParcel_Upload(new int[8], "12345678", new long[4], new byte[100], 3);
+
+        assertEquals(upload, Parcels.roundTrip(upload, AutoParcel_Upload.CREATOR));
+    }
+
+    @Test(expected = ParcelSizeException.class)
+    public void rejectsArrayOverClassLimit() {
+        read(new AutoParcel_Upload(new int[9], null, null, null, 0));
+    }
+
+    @Test(expected = ParcelSizeException.class)
+    public void rejectsStringOverClassLimit() {
+        read(new AutoParcel_Upload(null, "123456789", null, null, 0));
+    }
+
+    @Test(expected = ParcelSizeException.class)
+    public void rejectsArrayOverFieldLimit() {
+        read(new AutoParcel_Upload(null, null, new long[5], null, 0));
+    }
+
+    @Test(expected = ParcelSizeException.class)
+    public void rejectsCompressedValueOverFieldLimit() {
+        read(new AutoParcel_Upload(null, null, null, new byte[101], 0));
+    }
+
+    @Test(expected = ParcelSizeException.class)
+    public void rejectsLengthOverDataLeft() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeInt(0);
+        parcel.writeInt(6);
+        parcel.setDataPosition(0);
+        AutoParcel_Upload.CREATOR.createFromParcel(parcel);
+    }
+}
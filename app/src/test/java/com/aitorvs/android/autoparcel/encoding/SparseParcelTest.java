@@ -0,0 +1,88 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class SparseParcelTest {
+
+    @Test
+    public void roundTrip() {
+        Settings settings = new AutoParcel_Settings("dark", null, 0, 1476871200000L, true, new int[]{1, 2});
+
+        Settings result = Parcels.roundTrip(settings, AutoParcel_Settings.CREATOR);
+        assertEquals(settings, result);
+    }
+
+    @Test
+    public void elidesDefaultValues() {
+        Settings empty = new AutoParcel_Settings(null, null, 0, 0L, false, null);
+
+        Settings result = Parcels.roundTrip(empty, AutoParcel_Settings.CREATOR);
+        assertEquals(empty, result);
+        // version, bitmap length and a single bitmap word
+        assertEquals(12, Parcels.sizeOf(empty));
+    }
+
+    @Test
+    public void keepsEmptyValues() {
+        Settings settings = new AutoParcel_Settings("", null, 0, 0L, false, new int[0]);
+
+        Settings result = Parcels.roundTrip(settings, AutoParcel_Settings.CREATOR);
+        assertEquals("", result.theme);
+        assertArrayEquals(new int[0], result.shortcuts);
+        assertNull(result.language);
+    }
+
+    @Test(expected = BadParcelableException.class)
+    public void rejectsForgedBitmapLength() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeInt(Integer.MAX_VALUE);
+        parcel.writeInt(0);
+        parcel.setDataPosition(0);
+        AutoParcel_Settings.CREATOR.createFromParcel(parcel);
+    }
+
+    @Test
+    public void skipsLongerBitmap() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeInt(0);
+        parcel.writeInt(2);
+        parcel.writeInt(1 << 2);
+        parcel.writeInt(-1);
+        parcel.writeInt(12);
+        parcel.setDataPosition(0);
+
+        Settings result = AutoParcel_Settings.CREATOR.createFromParcel(parcel);
+        assertEquals(12, result.fontSize);
+        assertNull(result.theme);
+        assertEquals(0, parcel.dataAvail());
+    }
+}
@@ -0,0 +1,62 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.aitorvs.autoparcel.StringInterner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class StringInterningTest {
+
+    @Test
+    public void sharesEqualValues() {
+        Place first = Parcels.roundTrip(new AutoParcel_Place(new String("Bilbao"), new String("ES")),
+                AutoParcel_Place.CREATOR);
+        Place second = Parcels.roundTrip(new AutoParcel_Place(new String("Bilbao"), new String("ES")),
+                AutoParcel_Place.CREATOR);
+
+        assertEquals("Bilbao", first.city);
+        assertSame(first.city, second.city);
+        assertSame(first.country, second.country);
+        assertSame(first.country, StringInterner.global().intern(new String("ES")));
+    }
+
+    @Test
+    public void keepsDistinctValues() {
+        Place first = Parcels.roundTrip(new AutoParcel_Place("Bilbao", "ES"), AutoParcel_Place.CREATOR);
+        Place second = Parcels.roundTrip(new AutoParcel_Place("Lisboa", "PT"), AutoParcel_Place.CREATOR);
+
+        assertEquals("Lisboa", second.city);
+        assertEquals("PT", second.country);
+        assertNotSame(first.city, second.city);
+    }
+
+    @Test
+    public void roundTripNull() {
+        assertNull(Parcels.roundTrip(new AutoParcel_Place(null, "ES"), AutoParcel_Place.CREATOR).city);
+    }
+}
@@ -0,0 +1,44 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+
+import com.aitorvs.autoparcel.AutoParcel;
+import com.aitorvs.autoparcel.ParcelCompressed;
+import com.aitorvs.autoparcel.ParcelMaxSize;
+
+@AutoParcel(maxSize = 8)
+public abstract class Upload implements Parcelable {
+    @Nullable
+    public int[] chunks;
+
+    @Nullable
+    public String name;
+
+    @ParcelMaxSize(4)
+    @Nullable
+    public long[] stamps;
+
+    @ParcelCompressed
+    @ParcelMaxSize(100)
+    @Nullable
+    public byte[] body;
+
+    public int retries;
+}
@@ -0,0 +1,84 @@
+package com.aitorvs.android.autoparcel.encoding;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import android.os.Parcel;
+
+import com.aitorvs.autoparcel.Utf8Strings;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class Utf8StringsTest {
+
+    @Test
+    public void roundTrip() {
+        Link link = new AutoParcel_Link("https://example.com/some/long/path?with=query&and=more",
+                "h\u00e9llo w\u00f6rld \u20ac \ud83d\ude00");
+
+        Link result = Parcels.roundTrip(link, AutoParcel_Link.CREATOR);
+        assertEquals(link, result);
+    }
+
+    @Test
+    public void roundTripNullAndEmpty() {
+        Link result = Parcels.roundTrip(new AutoParcel_Link("", null), AutoParcel_Link.CREATOR);
+        assertEquals("", result.url);
+        assertNull(result.title);
+    }
+
+    @Test
+    public void asciiIsSmallerThanUtf16() {
+        String url = "https://example.com/some/long/path?with=query&and=more";
+        Parcel utf16 = Parcel.obtain();
+        utf16.writeString(url);
+        Parcel utf8 = Parcel.obtain();
+        Utf8Strings.writeString(utf8, url);
+        assertTrue(utf8.dataSize() < utf16.dataSize());
+        utf16.recycle();
+        utf8.recycle();
+    }
+
+    @Test
+    public void cjkIsLargerThanUtf16() {
+        String text = "\u65e5\u672c\u8a9e\u306e\u30c6\u30ad\u30b9\u30c8\u3092\u66f8\u304f";
+        Parcel utf16 = Parcel.obtain();
+        utf16.writeString(text);
+        Parcel utf8 = Parcel.obtain();
+        Utf8Strings.writeString(utf8, text);
+        assertTrue(utf8.dataSize() > utf16.dataSize());
+        utf16.recycle();
+        utf8.recycle();
+    }
+
+    @Test
+    public void replacesMalformedBytes() {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeByteArray(new byte[]{'a', (byte) 0xc3});
+        parcel.setDataPosition(0);
+        assertEquals("a\ufffd", Utf8Strings.readString(parcel));
+        parcel.recycle();
+    }
+}
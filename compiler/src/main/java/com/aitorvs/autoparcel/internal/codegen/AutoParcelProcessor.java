@@ -18,6 +18,12 @@ package com.aitorvs.autoparcel.internal.codegen;
 
 import com.aitorvs.autoparcel.AutoParcel;
 import com.aitorvs.autoparcel.ParcelAdapter;
+import com.aitorvs.autoparcel.ParcelCompressed;
+import com.aitorvs.autoparcel.ParcelDerived;
+import com.aitorvs.autoparcel.ParcelIntern;
+import com.aitorvs.autoparcel.ParcelMaxSize;
+import com.aitorvs.autoparcel.ParcelPacked;
+import com.aitorvs.autoparcel.ParcelUtf8;
 import com.aitorvs.autoparcel.ParcelVersion;
 import com.aitorvs.autoparcel.internal.common.MoreElements;
 import com.google.common.base.CaseFormat;
@@ -25,6 +31,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ArrayTypeName;
@@ -38,44 +45,107 @@ import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
 
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.MirroredTypesException;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
+import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.TRANSIENT;
+import static javax.lang.model.element.Modifier.VOLATILE;
 
 @SupportedAnnotationTypes("com.aitorvs.autoparcel.AutoParcel")
+@SupportedOptions({AutoParcelProcessor.OPTION_COMPACT, AutoParcelProcessor.OPTION_MODULE})
 public final class AutoParcelProcessor extends AbstractProcessor {
+    /**
+     * Processor option to generate less classes: one creator and one adapter holder per package,
+     * instead of one anonymous creator and one adapter instance per class
+     */
+    static final String OPTION_COMPACT = "autoparcel.compact";
+
+    /**
+     * Processor option naming the module in the generated ProGuard rules file,
+     * {@code META-INF/proguard/autoparcel-<module>.pro}. Defaults to the common package prefix
+     */
+    static final String OPTION_MODULE = "autoparcel.module";
+
+
+    private static final ClassName STRING_INTERNER = ClassName.get("com.aitorvs.autoparcel", "StringInterner");
+    private static final ClassName WEAK_INTERNER = ClassName.get("com.aitorvs.autoparcel", "WeakInterner");
+    private static final ClassName OBJECT_POOL = ClassName.get("com.aitorvs.autoparcel", "ObjectPool");
+    private static final ClassName PARCEL_REGISTRY = ClassName.get("com.aitorvs.autoparcel", "ParcelRegistry");
+    private static final String PARCEL_TYPE_ADAPTER = "com.aitorvs.autoparcel.ParcelTypeAdapter";
+    private static final String BULK_PARCEL_TYPE_ADAPTER = "com.aitorvs.autoparcel.BulkParcelTypeAdapter";
+    private static final String CONTEXT_PARCEL_TYPE_ADAPTER = "com.aitorvs.autoparcel.ContextParcelTypeAdapter";
+    private static final ImmutableMap<String, TypeName> PRIMITIVE_TYPE_ADAPTERS = ImmutableMap.of(
+            "com.aitorvs.autoparcel.IntParcelTypeAdapter", TypeName.INT,
+            "com.aitorvs.autoparcel.LongParcelTypeAdapter", TypeName.LONG,
+            "com.aitorvs.autoparcel.DoubleParcelTypeAdapter", TypeName.DOUBLE);
+    private static final ClassName PARCEL_GUARDS = ClassName.get("com.aitorvs.autoparcel", "ParcelGuards");
+    private static final ClassName BAD_PARCELABLE_EXCEPTION = ClassName.get("android.os", "BadParcelableException");
+
     private ErrorReporter mErrorReporter;
     private Types mTypeUtils;
 
+    // the qualified names of the classes with a CREATOR by package, over all rounds. The registry
+    // and the compact mode creator of each package are written once, in the first round that
+    // finds no more @AutoParcel classes
+    private final Map<String, List<String>> mPackageTypes = new LinkedHashMap<>();
+    private final Set<String> mWrittenPackages = new HashSet<>();
+
+    // compact mode state: the index of each class in the creator of its package and the adapters
+    // shared by the classes of each package, by getter name
+    private boolean mCompact;
+    private final Map<String, Integer> mCreatorIds = new HashMap<>();
+    private final Map<String, Map<String, ClassName>> mPackageAdapters = new LinkedHashMap<>();
+
+    // the generated classes whose CREATOR is read through reflection, over all rounds
+    private final Set<String> mKeptCreators = new TreeSet<>();
+
 
     static final class Property {
         final String fieldName;
@@ -83,7 +153,18 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         final TypeName typeName;
         final ImmutableSet<String> annotations;
         final int version;
+        final ParcelIntern intern;
+        final boolean packed;
+        final ParcelCompressed compressed;
+        boolean utf8;
+        int maxSize;
         TypeMirror typeAdapter;
+        TypeMirror keyAdapter;
+        TypeMirror elementAdapter;
+        TypeMirror mapValueAdapter;
+        ClassName codec;
+        String creator;
+        String collection;
 
         Property(String fieldName, VariableElement element) {
             this.fieldName = fieldName;
@@ -97,19 +178,64 @@ public final class AutoParcelProcessor extends AbstractProcessor {
                 try {
                     parcelAdapter.value();
                 } catch (MirroredTypeException e) {
-                    this.typeAdapter = e.getTypeMirror();
+                    this.typeAdapter = adapterOrNull(e.getTypeMirror());
+                }
+                try {
+                    parcelAdapter.key();
+                } catch (MirroredTypeException e) {
+                    this.keyAdapter = adapterOrNull(e.getTypeMirror());
+                }
+                try {
+                    parcelAdapter.element();
+                } catch (MirroredTypeException e) {
+                    this.elementAdapter = adapterOrNull(e.getTypeMirror());
+                }
+                try {
+                    parcelAdapter.mapValue();
+                } catch (MirroredTypeException e) {
+                    this.mapValueAdapter = adapterOrNull(e.getTypeMirror());
                 }
             }
 
             // get the element version, default 0
             ParcelVersion parcelVersion = element.getAnnotation(ParcelVersion.class);
             this.version = parcelVersion == null ? 0 : parcelVersion.from();
+
+            // get the string interning options if any
+            this.intern = element.getAnnotation(ParcelIntern.class);
+
+            // packed int[] / long[]?
+            this.packed = element.getAnnotation(ParcelPacked.class) != null;
+
+            // compressed byte[] / String / CharSequence?
+            this.compressed = element.getAnnotation(ParcelCompressed.class);
+
+            // UTF-8 string? it may also be enabled for the whole class
+            this.utf8 = element.getAnnotation(ParcelUtf8.class) != null;
+
+            // length cap, 0 for none. It may also be set for the whole class
+            ParcelMaxSize parcelMaxSize = element.getAnnotation(ParcelMaxSize.class);
+            this.maxSize = parcelMaxSize == null ? 0 : parcelMaxSize.value();
         }
 
         public boolean isNullable() {
             return this.annotations.contains("Nullable");
         }
 
+        /**
+         * @return the adapter of the elements or map values, or {@code null}
+         */
+        TypeMirror valueAdapter() {
+            return this.elementAdapter != null ? this.elementAdapter : this.mapValueAdapter;
+        }
+
+        /**
+         * @return the adapter attribute, or {@code null} when left to its {@code Void} default
+         */
+        private static TypeMirror adapterOrNull(TypeMirror adapter) {
+            return TypeName.get(adapter).equals(ClassName.get(Void.class)) ? null : adapter;
+        }
+
         public int version() {
             return this.version;
         }
@@ -129,6 +255,7 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         super.init(processingEnv);
         mErrorReporter = new ErrorReporter(processingEnv);
         mTypeUtils = processingEnv.getTypeUtils();
+        mCompact = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_COMPACT));
     }
 
     @Override
@@ -144,14 +271,80 @@ public final class AutoParcelProcessor extends AbstractProcessor {
                 .addAll(ElementFilter.typesIn(annotatedElements))
                 .build();
 
+        // the classes with a CREATOR, by package since the generated classes are package private
+        for (TypeElement type : types) {
+            if (mWrittenPackages.contains(TypeUtil.packageNameOf(type))) {
+                mErrorReporter.reportError("@AutoParcel class generated after the AutoParcelRegistry of its "
+                        + "package was written, generate it in an earlier round or another package", type);
+                continue;
+            }
+            if (type.getKind() == ElementKind.CLASS && type.getTypeParameters().isEmpty()
+                    && subtypesOf(type).isEmpty()) {
+                String pkg = TypeUtil.packageNameOf(type);
+                if (!mPackageTypes.containsKey(pkg)) {
+                    mPackageTypes.put(pkg, new ArrayList<String>());
+                }
+                List<String> packageTypes = mPackageTypes.get(pkg);
+                mCreatorIds.put(type.getQualifiedName().toString(), packageTypes.size());
+                packageTypes.add(type.getQualifiedName().toString());
+                mKeptCreators.add(qualifiedName(pkg, TypeUtil.simpleNameOf(generatedSubclassName(type, 0))));
+            }
+        }
+
         for (TypeElement type : types) {
-            processType(type);
+            if (!mWrittenPackages.contains(TypeUtil.packageNameOf(type))) {
+                processType(type);
+            }
+        }
+
+        // files created in the last round are not compiled without a warning, write them as soon
+        // as a round adds no classes
+        if (types.isEmpty() || env.processingOver()) {
+            writePackageFiles();
+        }
+        if (env.processingOver()) {
+            writeProguardRules();
         }
 
         // We are the only ones handling AutoParcel annotations
         return true;
     }
 
+    /**
+     * Writes the registry of each package and, in compact mode, its shared creator and adapters.
+     * Classes may be generated by other processors over several rounds, writing these files in
+     * each round would create them twice and restart the creator ids.
+     */
+    private void writePackageFiles() {
+        Elements elements = processingEnv.getElementUtils();
+        // one registry per package
+        Map<Integer, TypeElement> ids = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : mPackageTypes.entrySet()) {
+            // elements of earlier rounds must not be reused, look them up again
+            List<TypeElement> types = new ArrayList<>();
+            for (String name : entry.getValue()) {
+                types.add(elements.getTypeElement(name));
+            }
+            String pkg = entry.getKey();
+            if (mCompact) {
+                String source = generateSharedCreator(pkg, types);
+                writeSourceFile(qualifiedName(pkg, "AutoParcelCreator"), Reformatter.fixup(source), types.get(0));
+            }
+            String source = generateRegistry(pkg, types, ids);
+            writeSourceFile(qualifiedName(pkg, "AutoParcelRegistry"), Reformatter.fixup(source), types.get(0));
+        }
+        // generic classes share adapters too, their package may have no creator
+        for (Map.Entry<String, Map<String, ClassName>> entry : mPackageAdapters.entrySet()) {
+            String source = generateSharedAdapters(entry.getKey(), entry.getValue());
+            writeSourceFile(qualifiedName(entry.getKey(), "AutoParcelAdapters"), Reformatter.fixup(source));
+        }
+        mWrittenPackages.addAll(mPackageTypes.keySet());
+        mWrittenPackages.addAll(mPackageAdapters.keySet());
+        mPackageTypes.clear();
+        mCreatorIds.clear();
+        mPackageAdapters.clear();
+    }
+
     private void processType(TypeElement type) {
         AutoParcel autoParcel = type.getAnnotation(AutoParcel.class);
         if (autoParcel == null) {
@@ -161,8 +354,9 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         if (type.getKind() != ElementKind.CLASS) {
             mErrorReporter.abortWithError("@" + AutoParcel.class.getName() + " only applies to classes", type);
         }
-        if (ancestorIsAutoParcel(type)) {
-            mErrorReporter.abortWithError("One @AutoParcel class shall not extend another", type);
+        if (polymorphicBaseOf(type) == null && ancestorIsAutoParcel(type)) {
+            mErrorReporter.abortWithError("One @AutoParcel class shall not extend another, unless it is " +
+                    "listed in the subtypes of its base class", type);
         }
 
         checkModifiersIfNested(type);
@@ -171,16 +365,218 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         String fqClassName = generatedSubclassName(type, 0);
         // class name
         String className = TypeUtil.simpleNameOf(fqClassName);
-        String source = generateClass(type, className, type.getSimpleName().toString(), false);
+        List<TypeElement> subtypes = subtypesOf(type);
+        String source = subtypes.isEmpty()
+                ? generateClass(type, className, type.getSimpleName().toString(), false)
+                : generateCodec(type, className, subtypes);
         source = Reformatter.fixup(source);
         writeSourceFile(fqClassName, source, type);
 
     }
 
-    private void writeSourceFile(String className, String text, TypeElement originatingType) {
+    /**
+     * Writes the rules that keep the {@code CREATOR} fields, which {@code Parcel} looks up through
+     * reflection. Nothing else of the generated code needs to be kept.
+     */
+    private void writeProguardRules() {
+        if (mKeptCreators.isEmpty()) {
+            return;
+        }
+        String module = processingEnv.getOptions().get(OPTION_MODULE);
+        if (Strings.isNullOrEmpty(module)) {
+            module = commonPackagePrefix(mKeptCreators);
+        }
+
+        StringBuilder rules = new StringBuilder("# Generated by AutoParcel, do not edit\n");
+        for (String className : mKeptCreators) {
+            rules.append("-keepclassmembers class ").append(className).append(" {\n")
+                    .append("    public static final android.os.Parcelable$Creator CREATOR;\n")
+                    .append("}\n");
+        }
+
+        String fileName = "META-INF/proguard/autoparcel-" + module + ".pro";
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", fileName);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(rules.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not write " + fileName + ": " + e);
+        }
+    }
+
+    private static String commonPackagePrefix(Set<String> classNames) {
+        String prefix = null;
+        for (String className : classNames) {
+            String pkg = className.lastIndexOf('.') < 0 ? "" : className.substring(0, className.lastIndexOf('.'));
+            if (prefix == null) {
+                prefix = pkg;
+            }
+            while (!prefix.isEmpty() && !pkg.equals(prefix) && !pkg.startsWith(prefix + ".")) {
+                prefix = prefix.lastIndexOf('.') < 0 ? "" : prefix.substring(0, prefix.lastIndexOf('.'));
+            }
+        }
+        return Strings.isNullOrEmpty(prefix) ? "default" : prefix;
+    }
+
+    private static String qualifiedName(String pkg, String simpleName) {
+        return pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+    }
+
+    /**
+     * Generates the {@code Parcelable.Creator} shared by the classes of a package in compact mode.
+     * Each class has its own instance, whose id selects the class to create.
+     */
+    private String generateSharedCreator(String pkg, List<TypeElement> types) {
+        ClassName creator = ClassName.bestGuess("android.os.Parcelable.Creator");
+        TypeVariableName t = TypeVariableName.get("T");
+
+        MethodSpec.Builder createFromParcel = MethodSpec.methodBuilder("createFromParcel")
+                .addAnnotation(Override.class)
+                .addAnnotation(createSuppressUncheckedWarningAnnotation())
+                .addModifiers(PUBLIC)
+                .returns(t)
+                .addParameter(ClassName.get("android.os", "Parcel"), "in")
+                .beginControlFlow("switch (id)");
+        MethodSpec.Builder newArray = MethodSpec.methodBuilder("newArray")
+                .addAnnotation(Override.class)
+                .addAnnotation(createSuppressUncheckedWarningAnnotation())
+                .addModifiers(PUBLIC)
+                .returns(ArrayTypeName.of(t))
+                .addParameter(int.class, "size")
+                .beginControlFlow("switch (id)");
+
+        for (int i = 0; i < types.size(); i++) {
+            TypeElement type = types.get(i);
+            AutoParcel autoParcel = type.getAnnotation(AutoParcel.class);
+            ClassName generated = ClassName.get(pkg, TypeUtil.simpleNameOf(generatedSubclassName(type, 0)));
+            if (autoParcel.intern() || autoParcel.pooled()) {
+                createFromParcel.addStatement("case $L: return ($T) $T.fromParcel(in)", i, t, generated);
+            } else {
+                createFromParcel.addStatement("case $L: return ($T) new $T(in)", i, t, generated);
+            }
+            newArray.addStatement("case $L: return ($T[]) new $T[size]", i, t, generated);
+        }
+        createFromParcel.addStatement("default: throw new $T($S + id)", IllegalStateException.class, "Unknown id ")
+                .endControlFlow();
+        newArray.addStatement("default: throw new $T($S + id)", IllegalStateException.class, "Unknown id ")
+                .endControlFlow();
+
+        TypeSpec shared = TypeSpec.classBuilder("AutoParcelCreator")
+                .addModifiers(FINAL)
+                .addTypeVariable(t)
+                .addSuperinterface(ParameterizedTypeName.get(creator, t))
+                .addField(int.class, "id", PRIVATE, FINAL)
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addParameter(int.class, "id")
+                        .addStatement("this.id = id")
+                        .build())
+                .addMethod(createFromParcel.build())
+                .addMethod(newArray.build())
+                .build();
+
+        return JavaFile.builder(pkg, shared).build().toString();
+    }
+
+    /**
+     * Generates the holder of the type adapters shared by the classes of a package in compact
+     * mode. Adapters are created on first use.
+     */
+    private String generateSharedAdapters(String pkg, Map<String, ClassName> adapters) {
+        TypeSpec.Builder holder = TypeSpec.classBuilder("AutoParcelAdapters")
+                .addModifiers(FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(PRIVATE).build());
+
+        for (Map.Entry<String, ClassName> entry : adapters.entrySet()) {
+            String name = entry.getKey();
+            ClassName adapter = entry.getValue();
+            // adapters are stateless, creating one twice on a race is harmless
+            holder.addField(FieldSpec.builder(adapter, name, PRIVATE, STATIC)
+                    .addModifiers(VOLATILE).build());
+            holder.addMethod(MethodSpec.methodBuilder(name)
+                    .addModifiers(STATIC)
+                    .returns(adapter)
+                    .addStatement("$T adapter = $N", adapter, name)
+                    .beginControlFlow("if (adapter == null)")
+                    .addStatement("adapter = new $T()", adapter)
+                    .addStatement("$N = adapter", name)
+                    .endControlFlow()
+                    .addStatement("return adapter")
+                    .build());
+        }
+
+        return JavaFile.builder(pkg, holder.build()).build().toString();
+    }
+
+    /**
+     * The id of a class is the hash code of its qualified name, which is stable across builds and
+     * not affected by obfuscation. 0 is reserved for {@code null}.
+     */
+    private static int registryIdOf(TypeElement type) {
+        return type.getQualifiedName().toString().hashCode();
+    }
+
+    private String generateRegistry(String pkg, List<TypeElement> types, Map<Integer, TypeElement> ids) {
+        ClassName creator = ClassName.bestGuess("android.os.Parcelable.Creator");
+        TypeName classOfAny = ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class));
+        TypeName idsMap = ParameterizedTypeName.get(ClassName.get(Map.class), classOfAny, ClassName.get(Integer.class));
+
+        CodeBlock.Builder init = CodeBlock.builder()
+                .addStatement("$T ids = new $T<>($L)", idsMap, IdentityHashMap.class, types.size());
+        MethodSpec.Builder creatorOf = MethodSpec.methodBuilder("creatorOf")
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(ParameterizedTypeName.get(creator, WildcardTypeName.subtypeOf(Object.class)))
+                .addParameter(int.class, "id")
+                .beginControlFlow("switch (id)");
+
+        for (TypeElement type : types) {
+            int id = registryIdOf(type);
+            TypeElement other = ids.get(id);
+            if (id == 0) {
+                mErrorReporter.abortWithError("The registry id of this class is 0, which is reserved. Please rename it", type);
+            } else if (other != null) {
+                mErrorReporter.abortWithError("The registry id of this class collides with the one of " +
+                        other.getQualifiedName() + ". Please rename one of them", type);
+            }
+            ids.put(id, type);
+
+            ClassName generated = ClassName.get(pkg, TypeUtil.simpleNameOf(generatedSubclassName(type, 0)));
+            init.addStatement("ids.put($T.class, $L)", generated, id);
+            creatorOf.addStatement("case $L: return $T.CREATOR", id, generated);
+        }
+        init.addStatement("IDS = ids");
+        creatorOf.addStatement("default: return null")
+                .endControlFlow();
+
+        TypeSpec registry = TypeSpec.classBuilder("AutoParcelRegistry")
+                .addJavadoc("Registers the {@code @AutoParcel} classes of this package, see {@code AutoParcels}\n")
+                .addModifiers(PUBLIC, FINAL)
+                .addSuperinterface(PARCEL_REGISTRY)
+                .addField(idsMap, "IDS", PRIVATE, STATIC, FINAL)
+                .addStaticBlock(init.build())
+                .addMethod(MethodSpec.methodBuilder("idOf")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(int.class)
+                        .addParameter(classOfAny, "type")
+                        .addStatement("$T id = IDS.get(type)", Integer.class)
+                        .addStatement("return id == null ? 0 : id")
+                        .build())
+                .addMethod(creatorOf.build())
+                .build();
+
+        return JavaFile.builder(pkg, registry).build().toString();
+    }
+
+    private void writeSourceFile(String className, String text, Element... originatingElements) {
         try {
             JavaFileObject sourceFile =
-                    processingEnv.getFiler().createSourceFile(className, originatingType);
+                    processingEnv.getFiler().createSourceFile(className, originatingElements);
             Writer writer = sourceFile.openWriter();
             try {
                 writer.write(text);
@@ -216,67 +612,407 @@ public final class AutoParcelProcessor extends AbstractProcessor {
 
         // get the properties
         ImmutableList<Property> properties = buildProperties(nonPrivateFields);
+        checkProperties(properties);
+
+        // derived fields are not parcelled, only reset when the instance is overwritten
+        ImmutableList<Property> derived = buildProperties(getDerivedFieldsOrError(type));
+
+        // values of polymorphic base classes go through their codec
+        for (Property p : properties) {
+            p.codec = polymorphicCodecOf(p);
+        }
+
+        // values of the type parameters are read with their Parcelable.Creator
+        List<TypeVariableName> typeVariables = getTypeVariables(type);
+        List<ParameterSpec> creators = getCreators(type, properties, typeVariables);
+
+        // write all the plain strings as UTF-8?
+        if (type.getAnnotation(AutoParcel.class).utf8()) {
+            for (Property p : properties) {
+                p.utf8 |= Parcelables.isStringType(p.typeName) && p.typeAdapter == null && p.compressed == null;
+            }
+        }
+
+        // cap the length of the variable length fields?
+        int maxSize = type.getAnnotation(AutoParcel.class).maxSize();
+        if (maxSize < 0) {
+            mErrorReporter.abortWithError("@AutoParcel maxSize must not be negative", type);
+        }
+        for (Property p : properties) {
+            if (p.maxSize == 0) {
+                p.maxSize = maxSize;
+            }
+        }
 
         // get the type adapters
-        ImmutableMap<TypeMirror, FieldSpec> typeAdapters = getTypeAdapters(properties);
+        ImmutableMap<TypeMirror, FieldSpec> typeAdapters = getTypeAdapters(properties, TypeUtil.packageNameOf(type));
+
+        // compact and adapted collections are written by helper methods, one pair per collection type
+        ImmutableList<MethodSpec> collectionHelpers = getCollectionHelpers(properties, TypeUtil.packageNameOf(type),
+                typeAdapters);
+
+        // get the per-field string interners
+        ImmutableMap<Property, FieldSpec> interners = getInterners(properties);
 
         // get the parcel version
         //noinspection ConstantConditions
         int version = type.getAnnotation(AutoParcel.class).version();
 
+        // intern the instances read from the parcel?
+        boolean intern = type.getAnnotation(AutoParcel.class).intern();
+
+        // elide the properties set to their default values?
+        boolean sparse = type.getAnnotation(AutoParcel.class).sparse();
+
+        // reuse the instances through obtain()/recycle()?
+        boolean pooled = type.getAnnotation(AutoParcel.class).pooled();
+        if (pooled && intern) {
+            mErrorReporter.abortWithError("@AutoParcel(pooled = true) cannot be used along with intern = true, " +
+                    "interned instances are shared", type);
+        }
+        if (!typeVariables.isEmpty() && (pooled || intern)) {
+            mErrorReporter.abortWithError("Generic @AutoParcel classes cannot be pooled or interned", type);
+        }
+
+        // generate equals()/hashCode() and cache the hash code?
+        boolean equalsAndHashCode = !definesEqualsOrHashCode(type);
+        boolean cacheHashCode = type.getAnnotation(AutoParcel.class).cacheHashCode();
+        if (cacheHashCode && !equalsAndHashCode) {
+            mErrorReporter.reportWarning("@AutoParcel(cacheHashCode = true) is ignored, the class already " +
+                    "defines equals() or hashCode()", type);
+            cacheHashCode = false;
+        }
+
         // Generate the AutoParcel_??? class
         String pkg = TypeUtil.packageNameOf(type);
         TypeName classTypeName = ClassName.get(pkg, className);
+        TypeName superTypeName = ClassName.get(type);
+        if (!typeVariables.isEmpty()) {
+            TypeVariableName[] typeArguments = typeVariables.toArray(new TypeVariableName[0]);
+            classTypeName = ParameterizedTypeName.get(ClassName.get(pkg, className), typeArguments);
+            superTypeName = ParameterizedTypeName.get(ClassName.get(type), typeArguments);
+        }
+        // context adapters, and the classes that nest them, enter the context around reads and writes
+        boolean parcelContext = usesParcelContext(type, new HashSet<TypeElement>());
+
+        // values readFromParcel() reads into, remembered to tell them from values assigned from outside
+        List<Property> readInPlace = new ArrayList<>();
+        for (Property p : properties) {
+            if (isReadInPlace(p, processingEnv, pkg)) {
+                readInPlace.add(p);
+            }
+        }
+
         TypeSpec.Builder subClass = TypeSpec.classBuilder(className)
                 // Add the version
                 .addField(TypeName.INT, "version", PRIVATE)
                 // Class must be always final
                 .addModifiers(FINAL)
+                // same type parameters as the original class
+                .addTypeVariables(typeVariables)
                 // extends from original abstract class
-                .superclass(ClassName.get(pkg, classToExtend))
+                .superclass(typeVariables.isEmpty()
+                        ? ClassName.get(pkg, classToExtend)
+                        : ParameterizedTypeName.get(ClassName.get(pkg, classToExtend),
+                        typeVariables.toArray(new TypeVariableName[0])))
                 // Add the DEFAULT constructor
                 .addMethod(generateConstructor(properties))
                 // Add the private constructor
-                .addMethod(generateConstructorFromParcel(processingEnv, properties, typeAdapters))
+                .addMethod(generateConstructorFromParcel(creators, mCompact))
+                // Add the in-place reader
+                .addMethod(withParcelContext(generateReadFromParcel(processingEnv, properties, derived, typeAdapters,
+                        interners, sparse, cacheHashCode, intern, creators, pkg), parcelContext))
                 // overrides describeContents()
                 .addMethod(generateDescribeContents())
-                // static final CREATOR
-                .addField(generateCreator(processingEnv, properties, classTypeName, typeAdapters))
                 // overrides writeToParcel()
-                .addMethod(generateWriteToParcel(version, processingEnv, properties, typeAdapters)); // generate writeToParcel()
+                .addMethod(withParcelContext(generateWriteToParcel(version, processingEnv, properties, typeAdapters, sparse),
+                        parcelContext)) // generate writeToParcel()
+                // delta encoding against a base instance
+                .addMethod(withParcelContext(generateWriteDeltaToParcel(version, processingEnv, properties, superTypeName,
+                        typeAdapters), parcelContext))
+                .addMethod(withParcelContext(generateApplyDelta(version, processingEnv, properties, superTypeName,
+                        classTypeName, typeAdapters, interners, typeVariables, creators, intern), parcelContext))
+                // field by field copy
+                .addMethod(generateDeepCopy(processingEnv, properties, classTypeName, pkg));
+
+        if (typeVariables.isEmpty()) {
+            // static final CREATOR
+            if (mCompact) {
+                // the instance of the creator shared by the package
+                subClass.addField(generateSharedCreatorField(classTypeName, mCreatorIds.get(type.getQualifiedName().toString()), pkg));
+                if (intern || pooled) {
+                    subClass.addMethod(MethodSpec.methodBuilder("fromParcel")
+                            .addModifiers(STATIC)
+                            .returns(classTypeName)
+                            .addParameter(ClassName.bestGuess("android.os.Parcel"), "in")
+                            .addCode(createFromParcelBody(classTypeName, intern, pooled))
+                            .build());
+                }
+            } else {
+                subClass.addField(generateCreator(processingEnv, properties, classTypeName, typeAdapters, intern, pooled));
+            }
+        } else {
+            // no static CREATOR can know the type arguments, a factory takes their creators instead
+            subClass.addMethod(generateCreatorFactory(classTypeName, ClassName.get(pkg, className),
+                    typeVariables, creators));
+        }
 
         if (!ancestoIsParcelable(processingEnv, type)) {
             // Implement android.os.Parcelable if the ancestor does not do it.
             subClass.addSuperinterface(ClassName.get("android.os", "Parcelable"));
         }
 
+        if (equalsAndHashCode) {
+            // compare with X<?>, a raw cast would hide unchecked uses of the type arguments
+            TypeName classToCompare = typeVariables.isEmpty()
+                    ? ClassName.get(type)
+                    : ParameterizedTypeName.get(ClassName.get(type), wildcards(typeVariables.size()));
+            subClass.addMethod(generateEquals(properties, classToCompare, cacheHashCode));
+            subClass.addMethod(generateHashCode(properties, cacheHashCode));
+            if (cacheHashCode) {
+                subClass.addField(TypeName.INT, "cachedHashCode", PRIVATE);
+            }
+        }
+
+        if (intern) {
+            // interned instances are keyed on equals()/hashCode()
+            subClass.addField(generateInterner(classTypeName));
+        }
+
+        if (pooled) {
+            subClass.addField(generatePool(classTypeName))
+                    .addMethod(MethodSpec.constructorBuilder().addModifiers(PRIVATE).build())
+                    .addMethod(generateObtain(classTypeName))
+                    .addMethod(generateRecycle(properties, derived, readInPlace, cacheHashCode));
+        }
+
+        for (Property p : readInPlace) {
+            subClass.addField(p.typeName, ownedFieldName(p), PRIVATE, TRANSIENT);
+        }
+
         if (!typeAdapters.isEmpty()) {
             typeAdapters.values().forEach(subClass::addField);
         }
 
+        if (!interners.isEmpty()) {
+            interners.values().forEach(subClass::addField);
+        }
+
+        subClass.addMethods(collectionHelpers);
+
 
         JavaFile javaFile = JavaFile.builder(pkg, subClass.build()).build();
         return javaFile.toString();
     }
 
-    private ImmutableMap<TypeMirror, FieldSpec> getTypeAdapters(ImmutableList<Property> properties) {
+    private ImmutableMap<TypeMirror, FieldSpec> getTypeAdapters(ImmutableList<Property> properties, String pkg) {
         Map<TypeMirror, FieldSpec> typeAdapters = new LinkedHashMap<>();
         NameAllocator nameAllocator = new NameAllocator();
         nameAllocator.newName("CREATOR");
         for (Property property : properties) {
-            if (property.typeAdapter != null && !typeAdapters.containsKey(property.typeAdapter)) {
-                ClassName typeName = (ClassName) TypeName.get(property.typeAdapter);
+            for (TypeMirror adapter : Arrays.asList(property.typeAdapter, property.keyAdapter, property.valueAdapter())) {
+                if (adapter == null || typeAdapters.containsKey(adapter)) {
+                    continue;
+                }
+                ClassName typeName = (ClassName) TypeName.get(adapter);
                 String name = CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, typeName.simpleName());
                 name = nameAllocator.newName(name, typeName);
 
-                typeAdapters.put(property.typeAdapter, FieldSpec.builder(
+                // singleton adapters, like the built-in ones, are used as they are
+                CodeBlock initializer;
+                if (hasInstanceField(adapter)) {
+                    initializer = CodeBlock.of("$T.INSTANCE", typeName);
+                } else if (mCompact) {
+                    initializer = sharedAdapter(pkg, typeName);
+                } else {
+                    initializer = CodeBlock.of("new $T()", typeName);
+                }
+                typeAdapters.put(adapter, FieldSpec.builder(
                         typeName, NameAllocator.toJavaIdentifier(name), PRIVATE, STATIC, FINAL)
-                        .initializer("new $T()", typeName).build());
+                        .initializer(initializer)
+                        .build());
             }
         }
         return ImmutableMap.copyOf(typeAdapters);
     }
 
+    /**
+     * @return whether the adapter class declares a {@code public static final INSTANCE} of its own
+     * type
+     */
+    private boolean hasInstanceField(TypeMirror adapter) {
+        Element element = mTypeUtils.asElement(adapter);
+        if (element == null) {
+            return false;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals("INSTANCE")
+                    && field.getModifiers().containsAll(EnumSet.of(PUBLIC, STATIC, FINAL))
+                    && mTypeUtils.isSameType(field.asType(), adapter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the expression that gets the adapter instance shared by the package in compact mode
+     */
+    private CodeBlock sharedAdapter(String pkg, ClassName adapter) {
+        if (!mPackageAdapters.containsKey(pkg)) {
+            mPackageAdapters.put(pkg, new LinkedHashMap<String, ClassName>());
+        }
+        Map<String, ClassName> adapters = mPackageAdapters.get(pkg);
+        String name = null;
+        for (Map.Entry<String, ClassName> entry : adapters.entrySet()) {
+            if (entry.getValue().equals(adapter)) {
+                name = entry.getKey();
+            }
+        }
+        if (name == null) {
+            // adapters with the same simple name get a numeric suffix
+            String base = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_CAMEL, adapter.simpleName());
+            name = base;
+            for (int i = 2; adapters.containsKey(name); i++) {
+                name = base + i;
+            }
+            adapters.put(name, adapter);
+        }
+        return CodeBlock.of("$T.$N()", ClassName.get(pkg, "AutoParcelAdapters"), name);
+    }
+
+    private ImmutableMap<Property, FieldSpec> getInterners(ImmutableList<Property> properties) {
+        Map<Property, FieldSpec> interners = new LinkedHashMap<>();
+        for (Property property : properties) {
+            if (property.intern == null) {
+                continue;
+            }
+            if (!property.typeName.equals(ClassName.get(String.class))) {
+                mErrorReporter.abortWithError("@ParcelIntern only applies to String fields", property.element);
+            }
+            if (property.typeAdapter != null) {
+                mErrorReporter.abortWithError("@ParcelIntern can not be combined with @ParcelAdapter", property.element);
+            }
+            if (property.intern.global()) {
+                // global interner is looked up on every read, see StringInterner.setGlobal()
+                continue;
+            }
+            if (property.intern.size() <= 0) {
+                mErrorReporter.abortWithError("@ParcelIntern size must be positive", property.element);
+            }
+            String name = CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, property.fieldName) + "_INTERNER";
+            interners.put(property, FieldSpec.builder(STRING_INTERNER, name, PRIVATE, STATIC, FINAL)
+                    .initializer("new $T($L)", STRING_INTERNER, property.intern.size())
+                    .build());
+        }
+        return ImmutableMap.copyOf(interners);
+    }
+
+    /**
+     * Errors out when the parcel annotations of a property do not apply to its type
+     */
+    private void checkProperties(ImmutableList<Property> properties) {
+        for (Property property : properties) {
+            if (property.typeAdapter != null) {
+                if (property.keyAdapter != null || property.valueAdapter() != null) {
+                    mErrorReporter.abortWithError("@ParcelAdapter value can not be combined with element, key or mapValue",
+                            property.element);
+                }
+                checkTypeAdapter(property.typeAdapter, property.typeName, property.element);
+            }
+            if (property.elementAdapter != null) {
+                if (!Parcelables.acceptsElementAdapter(property.typeName)) {
+                    mErrorReporter.abortWithError("@ParcelAdapter element only applies to List, ArrayList, ArraySet " +
+                            "and object array fields", property.element);
+                }
+                checkTypeAdapter(property.elementAdapter, Parcelables.collectionValueType(property.typeName),
+                        property.element);
+            }
+            if (property.keyAdapter != null) {
+                if (!Parcelables.acceptsKeyAdapter(property.typeName)) {
+                    mErrorReporter.abortWithError("@ParcelAdapter key only applies to Map, HashMap, LinkedHashMap " +
+                            "and ArrayMap fields", property.element);
+                }
+                checkTypeAdapter(property.keyAdapter, Parcelables.collectionKeyType(property.typeName), property.element);
+            }
+            if (property.mapValueAdapter != null) {
+                if (!Parcelables.acceptsMapValueAdapter(property.typeName)) {
+                    mErrorReporter.abortWithError("@ParcelAdapter mapValue only applies to map, sparse array " +
+                            "and EnumMap fields", property.element);
+                }
+                checkTypeAdapter(property.mapValueAdapter, Parcelables.collectionValueType(property.typeName),
+                        property.element);
+            }
+            if (property.packed) {
+                if (!Parcelables.isPackableType(property.typeName)) {
+                    mErrorReporter.abortWithError("@ParcelPacked only applies to int[] and long[] fields", property.element);
+                }
+                if (property.typeAdapter != null) {
+                    mErrorReporter.abortWithError("@ParcelPacked can not be combined with @ParcelAdapter", property.element);
+                }
+            }
+            if (property.compressed != null) {
+                if (!Parcelables.isCompressibleType(property.typeName)) {
+                    mErrorReporter.abortWithError("@ParcelCompressed only applies to byte[], String and CharSequence fields",
+                            property.element);
+                }
+                if (property.typeAdapter != null) {
+                    mErrorReporter.abortWithError("@ParcelCompressed can not be combined with @ParcelAdapter", property.element);
+                }
+            }
+            if (property.utf8) {
+                if (!Parcelables.isStringType(property.typeName)) {
+                    mErrorReporter.abortWithError("@ParcelUtf8 only applies to String fields", property.element);
+                }
+                if (property.typeAdapter != null || property.compressed != null) {
+                    mErrorReporter.abortWithError("@ParcelUtf8 can not be combined with @ParcelAdapter or @ParcelCompressed",
+                            property.element);
+                }
+            }
+            if (property.element.getAnnotation(ParcelMaxSize.class) != null) {
+                if (property.maxSize <= 0) {
+                    mErrorReporter.abortWithError("@ParcelMaxSize must be positive", property.element);
+                }
+                if (minElementSize(property) == 0
+                        && !(property.compressed != null && Parcelables.isCompressibleType(property.typeName))) {
+                    mErrorReporter.abortWithError("@ParcelMaxSize only applies to array, List, String and sparse array " +
+                            "fields, except the arrays written with writeValue() like double[], float[] or short[]",
+                            property.element);
+                }
+                if (property.typeAdapter != null) {
+                    mErrorReporter.abortWithError("@ParcelMaxSize can not be combined with @ParcelAdapter", property.element);
+                }
+            }
+        }
+    }
+
+    /**
+     * Errors out when an adapter of a property is not a {@code ParcelTypeAdapter}, or is a
+     * primitive adapter of another type
+     *
+     * @param type the type of the field, or of its elements, keys or map values
+     */
+    private void checkTypeAdapter(TypeMirror typeAdapter, TypeName type, Element element) {
+        for (Map.Entry<String, TypeName> primitive : PRIMITIVE_TYPE_ADAPTERS.entrySet()) {
+            TypeElement adapter = processingEnv.getElementUtils().getTypeElement(primitive.getKey());
+            if (adapter != null && mTypeUtils.isAssignable(typeAdapter, adapter.asType())) {
+                TypeName primitiveType = primitive.getValue();
+                if (!type.equals(primitiveType) && !type.equals(primitiveType.box())) {
+                    mErrorReporter.abortWithError(String.format("@ParcelAdapter(%s) only applies to %s and %s values",
+                            adapter.getSimpleName(), primitiveType, ((ClassName) primitiveType.box()).simpleName()),
+                            element);
+                }
+                return;
+            }
+        }
+        TypeElement adapter = processingEnv.getElementUtils().getTypeElement(PARCEL_TYPE_ADAPTER);
+        if (adapter != null && !mTypeUtils.isAssignable(typeAdapter, mTypeUtils.erasure(adapter.asType()))
+                && !isContextAdapter(typeAdapter)) {
+            mErrorReporter.abortWithError("@ParcelAdapter classes must be ParcelTypeAdapter, ContextParcelTypeAdapter, " +
+                    "IntParcelTypeAdapter, LongParcelTypeAdapter or DoubleParcelTypeAdapter classes", element);
+        }
+    }
+
     private ImmutableList<Property> buildProperties(List<VariableElement> elements) {
         ImmutableList.Builder<Property> builder = ImmutableList.builder();
         for (VariableElement element : elements) {
@@ -286,18 +1022,34 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         return builder.build();
     }
 
+    private List<VariableElement> getAllFields(TypeElement type) {
+        List<VariableElement> allFields = new ArrayList<>();
+        // subtypes of a polymorphic base class also parcel the base class fields
+        TypeElement base = polymorphicBaseOf(type);
+        if (base != null) {
+            allFields.addAll(ElementFilter.fieldsIn(base.getEnclosedElements()));
+        }
+        allFields.addAll(ElementFilter.fieldsIn(type.getEnclosedElements()));
+        return allFields;
+    }
+
     /**
-     * This method returns a list of all non private fields. If any <code>private</code> fields is
+     * This method returns a list of all non private fields, other than <code>static</code>,
+     * <code>transient</code> and {@link ParcelDerived} ones. If any <code>private</code> fields is
      * found, the method errors out
      *
      * @param type element
      * @return list of all non-<code>private</code> fields
      */
     private List<VariableElement> getParcelableFieldsOrError(TypeElement type) {
-        List<VariableElement> allFields = ElementFilter.fieldsIn(type.getEnclosedElements());
         List<VariableElement> nonPrivateFields = new ArrayList<>();
 
-        for (VariableElement field : allFields) {
+        for (VariableElement field : getAllFields(type)) {
+            if (field.getModifiers().contains(STATIC) || field.getModifiers().contains(TRANSIENT)
+                    || field.getAnnotation(ParcelDerived.class) != null) {
+                // not part of the parcel
+                continue;
+            }
             if (!field.getModifiers().contains(PRIVATE)) {
                 nonPrivateFields.add(field);
             } else {
@@ -309,6 +1061,24 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         return nonPrivateFields;
     }
 
+    /**
+     * @return the {@link ParcelDerived} fields of the type, which must not be <code>private</code>
+     */
+    private List<VariableElement> getDerivedFieldsOrError(TypeElement type) {
+        List<VariableElement> derivedFields = new ArrayList<>();
+        for (VariableElement field : getAllFields(type)) {
+            if (field.getAnnotation(ParcelDerived.class) == null) {
+                continue;
+            }
+            if (field.getModifiers().contains(PRIVATE) || field.getModifiers().contains(STATIC)
+                    || field.getModifiers().contains(FINAL)) {
+                mErrorReporter.abortWithError("@ParcelDerived fields shall not be private, static or final", field);
+            }
+            derivedFields.add(field);
+        }
+        return derivedFields;
+    }
+
     private MethodSpec generateConstructor(ImmutableList<Property> properties) {
 
         List<ParameterSpec> params = Lists.newArrayListWithCapacity(properties.size());
@@ -326,27 +1096,400 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         return builder.build();
     }
 
-    private MethodSpec generateConstructorFromParcel(
-            ProcessingEnvironment env,
-            ImmutableList<Property> properties,
-            ImmutableMap<TypeMirror, FieldSpec> typeAdapters) {
-
-        // Create the PRIVATE constructor from Parcel
-        MethodSpec.Builder builder = MethodSpec.constructorBuilder()
-                .addModifiers(PRIVATE)      // private
-                .addParameter(ClassName.bestGuess("android.os.Parcel"), "in"); // input param
+    private MethodSpec generateConstructorFromParcel(List<ParameterSpec> creators, boolean compact) {
 
-        // get a code block builder
-        CodeBlock.Builder block = CodeBlock.builder();
+        // Create the PRIVATE constructor from Parcel, package private for the shared creator
+        MethodSpec.Builder builder = MethodSpec.constructorBuilder();
+        if (!compact) {
+            builder.addModifiers(PRIVATE);      // private
+        }
+        return builder
+                .addParameter(ClassName.bestGuess("android.os.Parcel"), "in") // input param
+                .addParameters(creators)
+                .addStatement("readFromParcel($L)", argumentsOf("in", creators))
+                .build();
+    }
 
-        // First thing is reading the Parcelable object version
-        block.add("this.version = in.readInt();\n");
+    private static CodeBlock argumentsOf(String first, List<ParameterSpec> params) {
+        CodeBlock.Builder args = CodeBlock.builder().add("$N", first);
+        for (ParameterSpec param : params) {
+            args.add(", $N", param);
+        }
+        return args.build();
+    }
 
-        // FIXME: 31/07/16 remove if not used
-        boolean requiresSuppressWarnings = false;
+    /**
+     * @return the type parameters of the class, which must be bounded by {@code Parcelable}
+     */
+    private List<TypeVariableName> getTypeVariables(TypeElement type) {
+        TypeMirror parcelable = processingEnv.getElementUtils().getTypeElement("android.os.Parcelable").asType();
+        List<TypeVariableName> typeVariables = new ArrayList<>();
+        for (TypeParameterElement parameter : type.getTypeParameters()) {
+            if (!mTypeUtils.isAssignable(parameter.asType(), parcelable)) {
+                mErrorReporter.abortWithError("Type parameter " + parameter.getSimpleName() +
+                        " of an @AutoParcel class shall extend Parcelable", type);
+            }
+            typeVariables.add(TypeVariableName.get(parameter));
+        }
+        return typeVariables;
+    }
 
-        // Now, iterate all properties, check the version initialize them
-        for (Property p : properties) {
+    /**
+     * Returns one {@code Parcelable.Creator} parameter per type parameter and links the
+     * properties typed {@code T}, {@code List<T>} or {@code T[]} to the creator of {@code T}
+     */
+    private List<ParameterSpec> getCreators(
+            TypeElement type,
+            ImmutableList<Property> properties,
+            List<TypeVariableName> typeVariables) {
+        List<ParameterSpec> creators = new ArrayList<>();
+        ClassName creator = ClassName.get("android.os", "Parcelable", "Creator");
+        for (TypeVariableName typeVariable : typeVariables) {
+            creators.add(ParameterSpec.builder(ParameterizedTypeName.get(creator, typeVariable),
+                    CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_CAMEL, typeVariable.name) + "Creator", FINAL).build());
+        }
+
+        for (Property p : properties) {
+            TypeName element = p.typeName;
+            if (element instanceof ArrayTypeName) {
+                element = ((ArrayTypeName) element).componentType;
+            } else if (element instanceof ParameterizedTypeName
+                    && ((ParameterizedTypeName) element).rawType.equals(ClassName.get(List.class))) {
+                element = ((ParameterizedTypeName) element).typeArguments.get(0);
+            }
+            int index = typeVariables.indexOf(element);
+            if (index >= 0) {
+                p.creator = creators.get(index).name;
+            } else if (mentionsTypeVariable(p.typeName)) {
+                mErrorReporter.abortWithError("Type parameters are only supported in fields of type T, " +
+                        "List<T> or T[]", p.element);
+            }
+            if (p.creator != null && (p.typeAdapter != null || p.intern != null)) {
+                mErrorReporter.abortWithError("Fields of a type parameter cannot have adapters or be interned",
+                        p.element);
+            }
+        }
+        return creators;
+    }
+
+    /**
+     * Links the {@code SparseIntArray}, {@code SparseLongArray}, {@code LongSparseArray},
+     * {@code ArrayMap}, {@code ArraySet}, {@code EnumSet} and {@code EnumMap} properties, the
+     * {@code SparseArray} properties whose values have a known creator, and the collections with
+     * element, key or map value adapters, to the helper methods that read and write them
+     *
+     * @return the helper methods, shared by the properties of the same type and adapters
+     */
+    private ImmutableList<MethodSpec> getCollectionHelpers(ImmutableList<Property> properties, String pkg,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters) {
+        Map<List<Object>, String> names = new LinkedHashMap<>();
+        ImmutableList.Builder<MethodSpec> helpers = ImmutableList.builder();
+        for (Property p : properties) {
+            if (p.typeAdapter != null || p.codec != null || p.creator != null || p.intern != null
+                    || mentionsTypeVariable(p.typeName)) {
+                continue;
+            }
+            FieldSpec keyAdapter = p.keyAdapter != null ? typeAdapters.get(p.keyAdapter) : null;
+            FieldSpec valueAdapter = p.valueAdapter() != null ? typeAdapters.get(p.valueAdapter()) : null;
+            List<Object> key = Arrays.<Object>asList(p.typeName, keyAdapter, valueAdapter);
+
+            if (Parcelables.isEnumCollectionType(p.typeName)) {
+                // the ordinals of the keys are written as a bitmask
+                List<? extends TypeMirror> arguments = ((DeclaredType) p.element.asType()).getTypeArguments();
+                Element enumType = mTypeUtils.asElement(arguments.get(0));
+                if (enumType == null || enumType.getKind() != ElementKind.ENUM
+                        || arguments.size() > 1 && !isElementType(TypeName.get(arguments.get(1)))) {
+                    continue;
+                }
+                int constants = 0;
+                for (Element enclosed : enumType.getEnclosedElements()) {
+                    if (enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+                        constants++;
+                    }
+                }
+                Parcelables.CollectionElement value = arguments.size() > 1
+                        ? new Parcelables.CollectionElement(TypeName.get(arguments.get(1)),
+                                valueAdapter == null ? elementCreator(arguments.get(1), pkg) : null, valueAdapter, false,
+                                valueAdapter != null && isContextAdapter(p.valueAdapter()))
+                        : null;
+
+                String name = names.get(key);
+                if (name == null) {
+                    name = collectionHelperName(p.typeName, key, names);
+                    helpers.add(Parcelables.enumCollectionWriter("write" + name, p.typeName, constants, value));
+                    helpers.add(Parcelables.enumCollectionReader("read" + name, p.typeName, constants, value));
+                }
+                p.collection = name;
+                continue;
+            }
+
+            // lists, arrays and maps only need helpers for their adapters
+            if (!Parcelables.isCollectionType(p.typeName) && keyAdapter == null && valueAdapter == null) {
+                continue;
+            }
+            TypeName keyType = Parcelables.collectionKeyType(p.typeName);
+            TypeName valueType = Parcelables.collectionValueType(p.typeName);
+            if (!isElementType(keyType) || !isElementType(valueType)) {
+                continue;
+            }
+            TypeMirror keyMirror = null;
+            TypeMirror valueMirror = null;
+            if (p.element.asType().getKind() == TypeKind.ARRAY) {
+                valueMirror = ((ArrayType) p.element.asType()).getComponentType();
+            } else {
+                List<? extends TypeMirror> arguments = ((DeclaredType) p.element.asType()).getTypeArguments();
+                keyMirror = keyType != null && !keyType.isPrimitive() ? arguments.get(0) : null;
+                valueMirror = valueType.isPrimitive() ? null : Iterables.getLast(arguments);
+            }
+            Parcelables.CollectionElement keyElement = keyType == null ? null
+                    : new Parcelables.CollectionElement(keyType,
+                            keyMirror != null && keyAdapter == null ? elementCreator(keyMirror, pkg) : null, keyAdapter,
+                            false, keyAdapter != null && isContextAdapter(p.keyAdapter));
+            Parcelables.CollectionElement value = new Parcelables.CollectionElement(valueType,
+                    valueMirror != null && valueAdapter == null ? elementCreator(valueMirror, pkg) : null, valueAdapter,
+                    valueAdapter != null && isBulkAdapter(p.valueAdapter()),
+                    valueAdapter != null && isContextAdapter(p.valueAdapter()));
+            // SparseArray is only worth it when its values need no class name
+            if (p.typeName instanceof ParameterizedTypeName
+                    && ((ParameterizedTypeName) p.typeName).rawType.equals(ClassName.get("android.util", "SparseArray"))
+                    && value.creator == null && value.adapter == null && !Parcelables.isStringType(valueType)) {
+                continue;
+            }
+
+            String name = names.get(key);
+            if (name == null) {
+                name = collectionHelperName(p.typeName, key, names);
+                helpers.add(Parcelables.collectionWriter("write" + name, p.typeName, keyElement, value));
+                helpers.add(Parcelables.collectionReader("read" + name, p.typeName, keyElement, value));
+            }
+            p.collection = name;
+        }
+        return helpers.build();
+    }
+
+    /**
+     * @return whether the adapter class implements {@code BulkParcelTypeAdapter}
+     */
+    private boolean isBulkAdapter(TypeMirror adapter) {
+        TypeElement bulk = processingEnv.getElementUtils().getTypeElement(BULK_PARCEL_TYPE_ADAPTER);
+        return bulk != null && mTypeUtils.isAssignable(adapter, mTypeUtils.erasure(bulk.asType()));
+    }
+
+    /**
+     * @return whether the adapter class implements {@code ContextParcelTypeAdapter}
+     */
+    private boolean isContextAdapter(TypeMirror adapter) {
+        TypeElement context = processingEnv.getElementUtils().getTypeElement(CONTEXT_PARCEL_TYPE_ADAPTER);
+        return context != null && mTypeUtils.isAssignable(adapter, mTypeUtils.erasure(context.asType()));
+    }
+
+    /**
+     * @return whether the reads and writes of the class enter a {@code ParcelContext}: it has
+     * fields with a {@code ContextParcelTypeAdapter}, or nests {@code @AutoParcel} classes of the
+     * same compilation that do, so that they all share the context of the outermost write
+     */
+    private boolean usesParcelContext(TypeElement type, Set<TypeElement> visited) {
+        if (!visited.add(type)) {
+            return false;
+        }
+        for (VariableElement field : getAllFields(type)) {
+            if (field.getModifiers().contains(STATIC) || field.getModifiers().contains(TRANSIENT)) {
+                continue;
+            }
+            Property property = new Property(field.getSimpleName().toString(), field);
+            for (TypeMirror adapter : Arrays.asList(property.typeAdapter, property.keyAdapter, property.valueAdapter())) {
+                if (adapter != null && isContextAdapter(adapter)) {
+                    return true;
+                }
+            }
+            List<TypeElement> nested = new ArrayList<>();
+            addAutoParcelTypes(field.asType(), nested);
+            for (TypeElement nestedType : nested) {
+                if (usesParcelContext(nestedType, visited)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the {@code @AutoParcel} classes mentioned by the type, its type arguments or its
+     * component type to {@code types}
+     */
+    private void addAutoParcelTypes(TypeMirror type, List<TypeElement> types) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            addAutoParcelTypes(((ArrayType) type).getComponentType(), types);
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            Element element = ((DeclaredType) type).asElement();
+            if (element.getAnnotation(AutoParcel.class) != null) {
+                types.add((TypeElement) element);
+            }
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                addAutoParcelTypes(argument, types);
+            }
+        }
+    }
+
+    /**
+     * @return the method with its body run inside the {@code ParcelContext} of the thread, or the
+     * method itself when {@code enter} is not set
+     */
+    private static MethodSpec withParcelContext(MethodSpec method, boolean enter) {
+        if (!enter) {
+            return method;
+        }
+        return MethodSpec.methodBuilder(method.name)
+                .addJavadoc("$L", method.javadoc)
+                .addAnnotations(method.annotations)
+                .addModifiers(method.modifiers)
+                .addTypeVariables(method.typeVariables)
+                .returns(method.returnType)
+                .addParameters(method.parameters)
+                .varargs(method.varargs)
+                .addExceptions(method.exceptions)
+                .addStatement("$T $N = $T.enter()", Parcelables.PARCEL_CONTEXT, Parcelables.PARCEL_CONTEXT_NAME,
+                        Parcelables.PARCEL_CONTEXT)
+                .beginControlFlow("try")
+                .addCode(method.code)
+                .nextControlFlow("finally")
+                .addStatement("$N.exit()", Parcelables.PARCEL_CONTEXT_NAME)
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Returns the name of the helper methods of the given collection type and records it in
+     * {@code names} under {@code key}
+     */
+    private static String collectionHelperName(TypeName type, List<Object> key, Map<List<Object>, String> names) {
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+        String simpleName = rawType instanceof ArrayTypeName
+                ? ((ClassName) ((ArrayTypeName) rawType).componentType).simpleName() + "Array"
+                : ((ClassName) rawType).simpleName();
+        // another parameterization of the same collection, or other adapters, get a numbered pair
+        String name = simpleName;
+        for (int n = 2; names.containsValue(name); n++) {
+            name = simpleName + n;
+        }
+        names.put(key, name);
+        return name;
+    }
+
+    private static boolean isElementType(TypeName type) {
+        return type == null || type.isPrimitive() || type instanceof ClassName || type instanceof ParameterizedTypeName;
+    }
+
+    /**
+     * Returns the {@code Parcelable.Creator} of the given collection element type when it is
+     * known at compile time: the creator of the generated class of an {@code @AutoParcel} class
+     * of the same package, or the {@code CREATOR} of a final {@code Parcelable} class
+     */
+    private CodeBlock elementCreator(TypeMirror elementType, String pkg) {
+        Element element = mTypeUtils.asElement(elementType);
+        if (element == null || element.getKind() != ElementKind.CLASS) {
+            return null;
+        }
+        TypeElement type = (TypeElement) element;
+        TypeElement parcelable = processingEnv.getElementUtils().getTypeElement("android.os.Parcelable");
+        if (parcelable == null || !mTypeUtils.isAssignable(elementType, parcelable.asType())
+                || !type.getTypeParameters().isEmpty()) {
+            return null;
+        }
+        if (type.getAnnotation(AutoParcel.class) != null) {
+            if (!TypeUtil.packageNameOf(type).equals(pkg) || !subtypesOf(type).isEmpty()) {
+                return null;
+            }
+            return CodeBlock.of("$T.CREATOR", ClassName.get(pkg, TypeUtil.simpleNameOf(generatedSubclassName(type, 0))));
+        }
+        if (!type.getModifiers().contains(FINAL)) {
+            // a subclass would be read back as the base class
+            return null;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals("CREATOR") && field.getModifiers().contains(STATIC)
+                    && field.getModifiers().contains(PUBLIC)) {
+                return CodeBlock.of("$T.CREATOR", ClassName.get(type));
+            }
+        }
+        return null;
+    }
+
+    private static boolean mentionsTypeVariable(TypeName type) {
+        if (type instanceof TypeVariableName) {
+            return true;
+        } else if (type instanceof ArrayTypeName) {
+            return mentionsTypeVariable(((ArrayTypeName) type).componentType);
+        } else if (type instanceof ParameterizedTypeName) {
+            for (TypeName argument : ((ParameterizedTypeName) type).typeArguments) {
+                if (mentionsTypeVariable(argument)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private MethodSpec generateReadFromParcel(
+            ProcessingEnvironment env,
+            ImmutableList<Property> properties,
+            ImmutableList<Property> derived,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            ImmutableMap<Property, FieldSpec> interners,
+            boolean sparse,
+            boolean cacheHashCode,
+            boolean intern,
+            List<ParameterSpec> creators,
+            String pkg) {
+
+        // Overwrites the fields of this instance, also used by AIDL for inout parameters. Interned
+        // instances are shared by everyone reading an equal value, only the constructor may read them
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("readFromParcel")
+                .addJavadoc("Overwrites the fields of this instance with the ones in the parcel. Arrays, lists and\n"
+                        + "nested {@code @AutoParcel} values that this instance read itself are read into, so any\n"
+                        + "reference to them kept elsewhere sees the new content. Values assigned from outside\n"
+                        + "are replaced instead, never modified.\n")
+                .addModifiers(intern ? PRIVATE : PUBLIC)
+                .addParameter(ClassName.bestGuess("android.os.Parcel"), "in") // input param
+                .addParameters(creators);
+
+        // get a code block builder
+        CodeBlock.Builder block = CodeBlock.builder();
+
+        // First thing is reading the Parcelable object version
+        block.add("this.version = in.readInt();\n");
+        if (cacheHashCode) {
+            block.addStatement("this.cachedHashCode = 0");
+        }
+
+        // The sparse layout is followed by the presence bitmap. When the class has versioned
+        // properties, bits are only assigned to those present in the parcel version
+        boolean versioned = false;
+        for (Property p : properties) {
+            versioned |= p.version() > 0;
+        }
+        if (sparse) {
+            // read word by word, the bitmap of an older version may be shorter and a newer one longer
+            int words = bitmapWords(properties.size());
+            block.addStatement("int words = in.readInt()");
+            block.beginControlFlow("if (words < 0 || words > in.dataAvail() / 4)")
+                    .addStatement("throw new $T($S + words)", BAD_PARCELABLE_EXCEPTION, "Corrupt sparse bitmap length: ")
+                    .endControlFlow();
+            for (int word = 0; word < words; word++) {
+                block.addStatement("int present$L = words > $L ? in.readInt() : 0", word, word);
+            }
+            block.beginControlFlow("if (words > $L)", words)
+                    .addStatement("in.setDataPosition(in.dataPosition() + 4 * (words - $L))", words)
+                    .endControlFlow();
+            if (versioned) {
+                block.addStatement("int bit = 0");
+            }
+        }
+
+        // Now, iterate all properties, check the version initialize them. Properties not in the
+        // parcel are reset to their default value, this instance may have been read before
+        for (int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
 
             // get the property version
             int pVersion = p.version();
@@ -354,28 +1497,326 @@ public final class AutoParcelProcessor extends AbstractProcessor {
                 block.beginControlFlow("if (this.version >= $L)", pVersion);
             }
 
-            block.add("this.$N = ", p.fieldName);
-
-            if (p.typeAdapter != null && typeAdapters.containsKey(p.typeAdapter)) {
-                Parcelables.readValueWithTypeAdapter(block, p, typeAdapters.get(p.typeAdapter));
-            } else {
-                requiresSuppressWarnings |= Parcelables.isTypeRequiresSuppressWarnings(p.typeName);
-                TypeName parcelableType = Parcelables.getTypeNameFromProperty(p, env.getTypeUtils());
-                Parcelables.readValue(block, p, parcelableType);
+            if (sparse) {
+                if (versioned) {
+                    block.beginControlFlow("if (($L & (1 << bit)) != 0)", presentWordOfBit(properties.size()));
+                } else {
+                    block.beginControlFlow("if ((present$L & $L) != 0)", i / 32, bitmapMask(i));
+                }
             }
 
-            block.add(";\n");
+            readPropertyInPlace(block, p, env, typeAdapters, interners, p.isNullable() && !sparse, pkg);
+
+            if (sparse) {
+                block.nextControlFlow("else");
+                block.addStatement("this.$N = $L", p.fieldName, Parcelables.defaultValue(p));
+                block.endControlFlow();
+                if (versioned) {
+                    block.addStatement("bit++");
+                }
+            }
 
             if (pVersion > 0) {
+                block.nextControlFlow("else");
+                block.addStatement("this.$N = $L", p.fieldName, Parcelables.defaultValue(p));
                 block.endControlFlow();
             }
         }
 
+        // derived fields are recomputed from the new values
+        for (Property p : derived) {
+            block.addStatement("this.$N = $L", p.fieldName, Parcelables.defaultValue(p));
+        }
+
         builder.addCode(block.build());
 
         return builder.build();
     }
 
+    /**
+     * @return minimum number of bytes an element of the property takes in the parcel, or 0 when
+     * its value does not start with its length
+     */
+    private static int minElementSize(Property p) {
+        if (p.packed || p.utf8) {
+            return 1;
+        }
+        // arrays with an element adapter are written by a collection helper, length first
+        if (p.elementAdapter != null && p.typeName instanceof ArrayTypeName) {
+            return 4;
+        }
+        return Parcelables.minElementSize(p.typeName);
+    }
+
+    /**
+     * Adds to {@code block} the statement that checks the length of the property in the {@code in}
+     * parcel against its {@link ParcelMaxSize}, before the value is allocated
+     *
+     * @param nullable whether the value is preceded by a null marker
+     */
+    private static void guardLength(CodeBlock.Builder block, Property p, boolean nullable) {
+        // compressed values check their length themselves, see CompressedValues
+        if (p.maxSize <= 0 || p.typeAdapter != null || p.compressed != null || p.codec != null) {
+            return;
+        }
+        int minElementSize = minElementSize(p);
+        if (minElementSize == 0) {
+            return;
+        }
+        // UTF-8 strings are read as byte[], a char takes 3 bytes at most
+        int maxSize = p.utf8 ? (int) Math.min(p.maxSize * 3L, Integer.MAX_VALUE) : p.maxSize;
+        block.addStatement("$T.checkLength(in, $L, $L, $L)", PARCEL_GUARDS, nullable, maxSize, minElementSize);
+    }
+
+    /**
+     * Adds to {@code block} the statements that read the property from the {@code in} parcel into
+     * {@code this}, reusing its current arrays, lists and nested {@code @AutoParcel} instances
+     * when possible
+     *
+     * @param nullable whether the value is preceded by a null marker
+     */
+    private void readPropertyInPlace(
+            CodeBlock.Builder block,
+            Property p,
+            ProcessingEnvironment env,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            ImmutableMap<Property, FieldSpec> interners,
+            boolean nullable,
+            String pkg) {
+
+        guardLength(block, p, nullable);
+
+        if (!isReadInPlace(p, env, pkg)) {
+            block.add("this.$N = ", p.fieldName);
+            readProperty(block, p, env, typeAdapters, interners, nullable);
+            block.add(";\n");
+            return;
+        }
+        TypeName parcelableType = Parcelables.getTypeNameFromProperty(p, env.getTypeUtils());
+        ClassName nested = Parcelables.isParcelableType(parcelableType) ? nestedAutoParcelClass(p, pkg) : null;
+        String owned = ownedFieldName(p);
+
+        if (nullable) {
+            block.beginControlFlow("if (in.readInt() == 0)");
+        }
+
+        if (nested != null) {
+            // writeParcelable() writes the class name first, reuse the instance if it matches
+            String start = p.fieldName + "Start";
+            block.addStatement("int $N = in.dataPosition()", start);
+            block.beginControlFlow("if (this.$N == this.$N && this.$N instanceof $T "
+                    + "&& $T.class.getName().equals(in.readString()))", p.fieldName, owned, p.fieldName, nested, nested);
+            block.addStatement("(($T) this.$N).readFromParcel(in)", nested, p.fieldName);
+            block.nextControlFlow("else");
+            block.addStatement("in.setDataPosition($N)", start);
+            block.add("this.$N = ", p.fieldName);
+            Parcelables.readValue(block, p, parcelableType, false);
+            block.add(";\n");
+            block.endControlFlow();
+        } else {
+            Parcelables.readValueInPlace(block, p, parcelableType, owned);
+        }
+
+        if (nullable) {
+            block.nextControlFlow("else");
+            block.addStatement("this.$N = null", p.fieldName);
+            block.endControlFlow();
+        }
+        block.addStatement("this.$N = this.$N", owned, p.fieldName);
+    }
+
+    /**
+     * @return whether {@code readFromParcel()} reads the property into its current value, an
+     * array, a list or a nested {@code @AutoParcel} instance, when this instance read it itself
+     */
+    private boolean isReadInPlace(Property p, ProcessingEnvironment env, String pkg) {
+        // only values read by plain Parcel calls can be reused
+        boolean plain = !p.packed && p.compressed == null && !p.utf8 && p.intern == null && p.typeAdapter == null
+                && p.codec == null && p.creator == null && p.collection == null;
+        if (!plain) {
+            return false;
+        }
+        TypeName parcelableType = Parcelables.getTypeNameFromProperty(p, env.getTypeUtils());
+        return Parcelables.isReusableType(parcelableType)
+                || Parcelables.isParcelableType(parcelableType) && nestedAutoParcelClass(p, pkg) != null;
+    }
+
+    /**
+     * @return the name of the field that holds the value of the property last read by
+     * {@code readFromParcel()}. Only that value is owned by the instance and can be read into,
+     * one assigned from outside may be shared
+     */
+    private static String ownedFieldName(Property p) {
+        return "owned" + Character.toUpperCase(p.fieldName.charAt(0)) + p.fieldName.substring(1);
+    }
+
+    /**
+     * Returns the generated class of the property type when it is an {@code @AutoParcel} class
+     * whose instances can be read in place and deep copied, i.e. in the same package and not
+     * interned
+     */
+    private ClassName nestedAutoParcelClass(Property p, String pkg) {
+        return nestedAutoParcelClass(p.element.asType(), pkg);
+    }
+
+    private ClassName nestedAutoParcelClass(TypeMirror typeMirror, String pkg) {
+        Element element = mTypeUtils.asElement(typeMirror);
+        if (element == null || element.getKind() != ElementKind.CLASS) {
+            return null;
+        }
+        TypeElement type = (TypeElement) element;
+        AutoParcel autoParcel = type.getAnnotation(AutoParcel.class);
+        if (autoParcel == null || autoParcel.intern() || !TypeUtil.packageNameOf(type).equals(pkg)
+                || !subtypesOf(type).isEmpty() || !type.getTypeParameters().isEmpty()) {
+            return null;
+        }
+        return ClassName.get(pkg, TypeUtil.simpleNameOf(generatedSubclassName(type, 0)));
+    }
+
+    /**
+     * Returns the codec of the property type when it is a polymorphic {@code @AutoParcel} base
+     * class in the same package, {@code null} otherwise
+     */
+    private ClassName polymorphicCodecOf(Property p) {
+        Element element = mTypeUtils.asElement(p.element.asType());
+        if (element == null || element.getKind() != ElementKind.CLASS) {
+            return null;
+        }
+        TypeElement type = (TypeElement) element;
+        String pkg = TypeUtil.packageNameOf((TypeElement) p.element.getEnclosingElement());
+        if (type.getAnnotation(AutoParcel.class) == null || subtypesOf(type).isEmpty()
+                || !TypeUtil.packageNameOf(type).equals(pkg)) {
+            return null;
+        }
+        return ClassName.get(pkg, TypeUtil.simpleNameOf(generatedSubclassName(type, 0)));
+    }
+
+    /**
+     * @return the subtypes listed in the {@code @AutoParcel} annotation of the type, if any
+     */
+    private List<TypeElement> subtypesOf(TypeElement type) {
+        List<TypeElement> subtypes = new ArrayList<>();
+        try {
+            type.getAnnotation(AutoParcel.class).subtypes();
+        } catch (MirroredTypesException e) {
+            for (TypeMirror subtype : e.getTypeMirrors()) {
+                subtypes.add((TypeElement) mTypeUtils.asElement(subtype));
+            }
+        }
+        return subtypes;
+    }
+
+    /**
+     * @return the direct superclass of the type when it is an {@code @AutoParcel} class listing
+     * the type in its subtypes, {@code null} otherwise
+     */
+    private TypeElement polymorphicBaseOf(TypeElement type) {
+        Element parent = mTypeUtils.asElement(type.getSuperclass());
+        if (parent == null || parent.getAnnotation(AutoParcel.class) == null) {
+            return null;
+        }
+        TypeElement base = (TypeElement) parent;
+        for (TypeElement subtype : subtypesOf(base)) {
+            if (subtype.getQualifiedName().contentEquals(type.getQualifiedName())) {
+                return base;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generates the codec of a polymorphic base class, that writes the index of the subtype
+     * followed by its fields and dispatches the reads to the subtype {@code CREATOR}
+     */
+    private String generateCodec(TypeElement type, String className, List<TypeElement> subtypes) {
+        if (!type.getModifiers().contains(ABSTRACT)) {
+            mErrorReporter.abortWithError("@AutoParcel classes with subtypes shall be abstract", type);
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            mErrorReporter.abortWithError("@AutoParcel classes with subtypes shall not be generic", type);
+        }
+
+        String pkg = TypeUtil.packageNameOf(type);
+        TypeName baseType = ClassName.get(type);
+        ClassName parcel = ClassName.get("android.os", "Parcel");
+        List<ClassName> generated = new ArrayList<>();
+        for (TypeElement subtype : subtypes) {
+            if (subtype.getAnnotation(AutoParcel.class) == null) {
+                mErrorReporter.abortWithError("Subtype " + subtype.getQualifiedName() +
+                        " shall be annotated with @AutoParcel", type);
+            }
+            if (!TypeUtil.packageNameOf(subtype).equals(pkg)) {
+                mErrorReporter.abortWithError("Subtype " + subtype.getQualifiedName() +
+                        " shall be in the same package as its base class", type);
+            }
+            if (!type.equals(mTypeUtils.asElement(subtype.getSuperclass()))
+                    || !subtype.getTypeParameters().isEmpty()) {
+                mErrorReporter.abortWithError("Subtype " + subtype.getQualifiedName() +
+                        " shall directly extend " + type.getSimpleName() + " and not be generic", type);
+            }
+            ClassName subclass = ClassName.get(pkg, TypeUtil.simpleNameOf(generatedSubclassName(subtype, 0)));
+            if (generated.contains(subclass)) {
+                mErrorReporter.abortWithError("Subtype " + subtype.getQualifiedName() + " is listed twice", type);
+            }
+            generated.add(subclass);
+        }
+
+        ParameterSpec value = ParameterSpec.builder(baseType, "value").build();
+
+        // the tag is the index of the subtype, -1 for null
+        MethodSpec.Builder write = MethodSpec.methodBuilder("write")
+                .addModifiers(STATIC)
+                .addParameter(value)
+                .addParameter(parcel, "dest")
+                .addParameter(int.class, "flags");
+        write.beginControlFlow("if ($N == null)", value)
+                .addStatement("dest.writeInt(-1)");
+        for (int i = 0; i < generated.size(); i++) {
+            write.nextControlFlow("else if ($N instanceof $T)", value, generated.get(i))
+                    .addStatement("dest.writeInt($L)", i)
+                    .addStatement("(($T) $N).writeToParcel(dest, flags)", generated.get(i), value);
+        }
+        write.nextControlFlow("else")
+                .addStatement("throw new $T($S + $N.getClass().getName())", IllegalArgumentException.class,
+                        "Unknown subtype of " + type.getSimpleName() + ": ", value)
+                .endControlFlow();
+
+        MethodSpec.Builder read = MethodSpec.methodBuilder("read")
+                .addModifiers(STATIC)
+                .returns(baseType)
+                .addParameter(parcel, "in");
+        read.addStatement("int tag = in.readInt()");
+        read.beginControlFlow("switch (tag)")
+                .addStatement("case -1: return null");
+        for (int i = 0; i < generated.size(); i++) {
+            read.addStatement("case $L: return $T.CREATOR.createFromParcel(in)", i, generated.get(i));
+        }
+        read.addStatement("default: throw new $T($S + tag)", BAD_PARCELABLE_EXCEPTION,
+                "Unknown subtype tag of " + type.getSimpleName() + ": ")
+                .endControlFlow();
+
+        MethodSpec.Builder deepCopy = MethodSpec.methodBuilder("deepCopy")
+                .addModifiers(STATIC)
+                .returns(baseType)
+                .addParameter(value);
+        for (ClassName subclass : generated) {
+            deepCopy.beginControlFlow("if ($N instanceof $T)", value, subclass)
+                    .addStatement("return (($T) $N).deepCopy()", subclass, value)
+                    .endControlFlow();
+        }
+        deepCopy.addStatement("return $N", value);
+
+        TypeSpec codec = TypeSpec.classBuilder(className)
+                .addModifiers(FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(PRIVATE).build())
+                .addMethod(write.build())
+                .addMethod(read.build())
+                .addMethod(deepCopy.build())
+                .build();
+
+        return JavaFile.builder(pkg, codec).build().toString();
+    }
+
     private String generatedSubclassName(TypeElement type, int depth) {
         return generatedClassName(type, Strings.repeat("$", depth) + "AutoParcel_");
     }
@@ -395,7 +1836,8 @@ public final class AutoParcelProcessor extends AbstractProcessor {
             int version,
             ProcessingEnvironment env,
             ImmutableList<Property> properties,
-            ImmutableMap<TypeMirror, FieldSpec> typeAdapters) {
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            boolean sparse) {
         ParameterSpec dest = ParameterSpec
                 .builder(ClassName.get("android.os", "Parcel"), "dest")
                 .build();
@@ -409,19 +1851,303 @@ public final class AutoParcelProcessor extends AbstractProcessor {
         // write first the parcelable object version...
         builder.addCode(Parcelables.writeVersion(version, dest));
 
+        if (sparse) {
+            // ...then the bitmap of properties not set to their default value, laid out like an
+            // int[], its length first...
+            int words = bitmapWords(properties.size());
+            for (int word = 0; word < words; word++) {
+                builder.addStatement("int present$L = 0", word);
+            }
+            for (int i = 0; i < properties.size(); i++) {
+                builder.beginControlFlow("if ($L)", Parcelables.isNotDefaultValue(properties.get(i)))
+                        .addStatement("present$L |= $L", i / 32, bitmapMask(i))
+                        .endControlFlow();
+            }
+            builder.addStatement("$N.writeInt($L)", dest, words);
+            for (int word = 0; word < words; word++) {
+                builder.addStatement("$N.writeInt(present$L)", dest, word);
+            }
+
+            // ...and only the properties that are present, which are never null
+            for (int i = 0; i < properties.size(); i++) {
+                builder.beginControlFlow("if ((present$L & $L) != 0)", i / 32, bitmapMask(i))
+                        .addCode(writeProperty(properties.get(i), dest, flags, env, typeAdapters, false))
+                        .endControlFlow();
+            }
+            return builder.build();
+        }
+
         // ...then write all the properties
         for (Property p : properties) {
-            if (p.typeAdapter != null && typeAdapters.containsKey(p.typeAdapter)) {
-                FieldSpec typeAdapter = typeAdapters.get(p.typeAdapter);
-                builder.addCode(Parcelables.writeValueWithTypeAdapter(typeAdapter, p, dest));
+            builder.addCode(writeProperty(p, dest, flags, env, typeAdapters));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Adds to {@code block} the expression that reads the property from the {@code in} parcel
+     */
+    private void readProperty(
+            CodeBlock.Builder block,
+            Property p,
+            ProcessingEnvironment env,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            ImmutableMap<Property, FieldSpec> interners) {
+        readProperty(block, p, env, typeAdapters, interners, p.isNullable());
+    }
+
+    /**
+     * Adds to {@code block} the expression that reads the property from the {@code in} parcel
+     *
+     * @param nullable whether the value is preceded by a null marker
+     */
+    private void readProperty(
+            CodeBlock.Builder block,
+            Property p,
+            ProcessingEnvironment env,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            ImmutableMap<Property, FieldSpec> interners,
+            boolean nullable) {
+
+        if (p.intern != null) {
+            if (p.intern.global()) {
+                block.add("$T.global().intern(", STRING_INTERNER);
             } else {
-                builder.addCode(Parcelables.writeValue(p, dest, flags, env.getTypeUtils()));
+                block.add("$N.intern(", interners.get(p));
             }
         }
 
+        if (p.packed) {
+            Parcelables.readPackedValue(block, p, nullable);
+        } else if (p.compressed != null) {
+            Parcelables.readCompressedValue(block, p, nullable);
+        } else if (p.utf8) {
+            Parcelables.readUtf8Value(block, nullable);
+        } else if (p.typeAdapter != null && typeAdapters.containsKey(p.typeAdapter)) {
+            Parcelables.readValueWithTypeAdapter(block, p, typeAdapters.get(p.typeAdapter), nullable,
+                    isContextAdapter(p.typeAdapter));
+        } else if (p.codec != null) {
+            Parcelables.readPolymorphicValue(block, p.codec, nullable);
+        } else if (p.creator != null) {
+            Parcelables.readTypedValue(block, p, nullable);
+        } else if (p.collection != null) {
+            if (nullable) {
+                block.add("in.readInt() == 0 ? read$L(in) : null", p.collection);
+            } else {
+                block.add("read$L(in)", p.collection);
+            }
+        } else {
+            TypeName parcelableType = Parcelables.getTypeNameFromProperty(p, env.getTypeUtils());
+            Parcelables.readValue(block, p, parcelableType, nullable);
+        }
+
+        if (p.intern != null) {
+            block.add(")");
+        }
+    }
+
+    /**
+     * Returns the statements that write the property of {@code this} into the {@code dest} parcel
+     */
+    private CodeBlock writeProperty(
+            Property p,
+            ParameterSpec dest,
+            ParameterSpec flags,
+            ProcessingEnvironment env,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters) {
+        return writeProperty(p, dest, flags, env, typeAdapters, p.isNullable());
+    }
+
+    /**
+     * Returns the statements that write the property of {@code this} into the {@code dest} parcel
+     *
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    private CodeBlock writeProperty(
+            Property p,
+            ParameterSpec dest,
+            ParameterSpec flags,
+            ProcessingEnvironment env,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            boolean nullable) {
+
+        if (p.packed) {
+            return Parcelables.writePackedValue(p, dest, nullable);
+        } else if (p.compressed != null) {
+            return Parcelables.writeCompressedValue(p, dest, nullable);
+        } else if (p.utf8) {
+            return Parcelables.writeUtf8Value(p, dest, nullable);
+        } else if (p.typeAdapter != null && typeAdapters.containsKey(p.typeAdapter)) {
+            FieldSpec typeAdapter = typeAdapters.get(p.typeAdapter);
+            return Parcelables.writeValueWithTypeAdapter(typeAdapter, p, dest, nullable, isContextAdapter(p.typeAdapter));
+        } else if (p.codec != null) {
+            return Parcelables.writePolymorphicValue(p, dest, flags, p.codec, nullable);
+        } else if (p.creator != null) {
+            return Parcelables.writeTypedValue(p, dest, flags, nullable);
+        } else if (p.collection != null) {
+            CodeBlock.Builder block = CodeBlock.builder();
+            if (nullable) {
+                block.beginControlFlow("if ($N == null)", p.fieldName);
+                block.addStatement("$N.writeInt(1)", dest);
+                block.nextControlFlow("else");
+                block.addStatement("$N.writeInt(0)", dest);
+            }
+            block.addStatement("write$L($N, $N, $N)", p.collection, p.fieldName, dest, flags);
+            if (nullable) {
+                block.endControlFlow();
+            }
+            return block.build();
+        } else {
+            return Parcelables.writeValue(p, dest, flags, env.getTypeUtils(), nullable);
+        }
+    }
+
+    private MethodSpec generateWriteDeltaToParcel(
+            int version,
+            ProcessingEnvironment env,
+            ImmutableList<Property> properties,
+            TypeName classToExtend,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters) {
+        // the values are written by field name, which base must not hide
+        Set<String> fieldNames = new HashSet<>();
+        for (Property p : properties) {
+            fieldNames.add(p.fieldName);
+        }
+        String baseName = "base";
+        while (fieldNames.contains(baseName)) {
+            baseName = "_" + baseName;
+        }
+        ParameterSpec base = ParameterSpec.builder(classToExtend, baseName).build();
+        ParameterSpec dest = ParameterSpec
+                .builder(ClassName.get("android.os", "Parcel"), "dest")
+                .build();
+        ParameterSpec flags = ParameterSpec.builder(int.class, "flags").build();
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("writeDeltaToParcel")
+                .addModifiers(PUBLIC)
+                .addParameter(base)
+                .addParameter(dest)
+                .addParameter(flags);
+
+        // first build the changed-fields bitmap, one int per 32 properties...
+        int words = bitmapWords(properties.size());
+        for (int word = 0; word < words; word++) {
+            builder.addStatement("int changed$L = 0", word);
+        }
+        for (int i = 0; i < properties.size(); i++) {
+            builder.beginControlFlow("if ($L)", not(Parcelables.equalsValue(properties.get(i), base.name)))
+                    .addStatement("changed$L |= $L", i / 32, bitmapMask(i))
+                    .endControlFlow();
+        }
+
+        // ...then write the version and the bitmap...
+        builder.addCode(Parcelables.writeVersion(version, dest));
+        for (int word = 0; word < words; word++) {
+            builder.addStatement("$N.writeInt(changed$L)", dest, word);
+        }
+
+        // ...and finally only the values that changed
+        for (int i = 0; i < properties.size(); i++) {
+            builder.beginControlFlow("if ((changed$L & $L) != 0)", i / 32, bitmapMask(i))
+                    .addCode(writeProperty(properties.get(i), dest, flags, env, typeAdapters))
+                    .endControlFlow();
+        }
+
         return builder.build();
     }
 
+    private MethodSpec generateApplyDelta(
+            int version,
+            ProcessingEnvironment env,
+            ImmutableList<Property> properties,
+            TypeName classToExtend,
+            TypeName className,
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            ImmutableMap<Property, FieldSpec> interners,
+            List<TypeVariableName> typeVariables,
+            List<ParameterSpec> creators,
+            boolean intern) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("applyDelta")
+                .addJavadoc("@return a new instance with the fields that changed read from the parcel, written by\n"
+                        + "{@code writeDeltaToParcel()}, and the other ones taken from {@code base}. Those are\n"
+                        + "not copied: arrays, lists and nested values are shared with {@code base}\n")
+                .addModifiers(PUBLIC, STATIC)
+                .addTypeVariables(typeVariables)
+                .returns(className)
+                .addParameter(classToExtend, "base")
+                .addParameter(ClassName.get("android.os", "Parcel"), "in")
+                .addParameters(creators);
+
+        // deltas are only meaningful between instances of the same version
+        builder.addStatement("int version = in.readInt()");
+        builder.beginControlFlow("if (version != $L)", version)
+                .addStatement("throw new $T($S + version)", BAD_PARCELABLE_EXCEPTION,
+                        "Delta version mismatch, expected " + version + " but was ")
+                .endControlFlow();
+
+        int words = bitmapWords(properties.size());
+        for (int word = 0; word < words; word++) {
+            builder.addStatement("int changed$L = in.readInt()", word);
+        }
+
+        // start from a copy of base...
+        CodeBlock.Builder args = CodeBlock.builder();
+        for (int i = 0; i < properties.size(); i++) {
+            args.add(i == 0 ? "base.$N" : ", base.$N", properties.get(i).fieldName);
+        }
+        builder.addStatement("$T result = new $T($L)", className, className, args.build());
+
+        // ...and override the values that changed
+        for (int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
+            CodeBlock.Builder block = CodeBlock.builder();
+            guardLength(block, p, p.isNullable());
+            block.add("result.$N = ", p.fieldName);
+            readProperty(block, p, env, typeAdapters, interners);
+            block.add(";\n");
+
+            builder.beginControlFlow("if ((changed$L & $L) != 0)", i / 32, bitmapMask(i))
+                    .addCode(block.build())
+                    .endControlFlow();
+        }
+
+        if (intern) {
+            builder.addStatement("return INTERNER.intern(result)");
+        } else {
+            builder.addStatement("return result");
+        }
+
+        return builder.build();
+    }
+
+    private static CodeBlock not(CodeBlock condition) {
+        // parenthesized conditions do not need another pair of parenthesis
+        return condition.toString().startsWith("(")
+                ? CodeBlock.of("!$L", condition)
+                : CodeBlock.of("!($L)", condition);
+    }
+
+    /**
+     * @return the expression that picks the {@code presentN} word holding the {@code bit} local
+     */
+    private static CodeBlock presentWordOfBit(int bits) {
+        int words = bitmapWords(bits);
+        CodeBlock.Builder word = CodeBlock.builder();
+        for (int i = 0; i < words - 1; i++) {
+            word.add("bit >> 5 == $L ? present$L : ", i, i);
+        }
+        word.add("present$L", words - 1);
+        return words == 1 ? word.build() : CodeBlock.of("($L)", word.build());
+    }
+
+    private static int bitmapWords(int bits) {
+        return (bits + 31) / 32;
+    }
+
+    private static String bitmapMask(int bit) {
+        return bit % 32 == 0 ? "1" : "1 << " + (bit % 32);
+    }
+
     private MethodSpec generateDescribeContents() {
         return MethodSpec.methodBuilder("describeContents")
                 .addAnnotation(Override.class)
@@ -435,14 +2161,14 @@ public final class AutoParcelProcessor extends AbstractProcessor {
             ProcessingEnvironment env,
             ImmutableList<Property> properties,
             TypeName type,
-            ImmutableMap<TypeMirror, FieldSpec> typeAdapters) {
+            ImmutableMap<TypeMirror, FieldSpec> typeAdapters,
+            boolean intern,
+            boolean pooled) {
         ClassName creator = ClassName.bestGuess("android.os.Parcelable.Creator");
         TypeName creatorOfClass = ParameterizedTypeName.get(creator, type);
 
-        Types typeUtils = env.getTypeUtils();
-        CodeBlock.Builder ctorCall = CodeBlock.builder();
         boolean requiresSuppressWarnings = false;
-        ctorCall.add("return new $T(in);\n", type);
+        CodeBlock ctorCall = createFromParcelBody(type, intern, pooled);
 
         // Method createFromParcel()
         MethodSpec.Builder createFromParcel = MethodSpec.methodBuilder("createFromParcel")
@@ -454,7 +2180,7 @@ public final class AutoParcelProcessor extends AbstractProcessor {
                 .addModifiers(PUBLIC)
                 .returns(type)
                 .addParameter(ClassName.bestGuess("android.os.Parcel"), "in");
-        createFromParcel.addCode(ctorCall.build());
+        createFromParcel.addCode(ctorCall);
 
         TypeSpec creatorImpl = TypeSpec.anonymousClassBuilder("")
                 .superclass(creatorOfClass)
@@ -475,6 +2201,287 @@ public final class AutoParcelProcessor extends AbstractProcessor {
                 .build();
     }
 
+    private MethodSpec generateCreatorFactory(
+            TypeName type,
+            ClassName rawType,
+            List<TypeVariableName> typeVariables,
+            List<ParameterSpec> creators) {
+        ClassName creator = ClassName.bestGuess("android.os.Parcelable.Creator");
+        TypeName creatorOfClass = ParameterizedTypeName.get(creator, type);
+
+        TypeSpec creatorImpl = TypeSpec.anonymousClassBuilder("")
+                .superclass(creatorOfClass)
+                .addMethod(MethodSpec.methodBuilder("createFromParcel")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(type)
+                        .addParameter(ClassName.bestGuess("android.os.Parcel"), "in")
+                        .addStatement("return new $T($L)", type, argumentsOf("in", creators))
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("newArray")
+                        .addAnnotation(Override.class)
+                        // arrays of a generic type can only be created raw
+                        .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                                .addMember("value", "{$S, $S}", "unchecked", "rawtypes")
+                                .build())
+                        .addModifiers(PUBLIC)
+                        .returns(ArrayTypeName.of(type))
+                        .addParameter(int.class, "size")
+                        .addStatement("return new $T[size]", rawType)
+                        .build())
+                .build();
+
+        return MethodSpec.methodBuilder("creator")
+                .addJavadoc("@return the {@code CREATOR} of the instances whose type arguments are read with the given\n"
+                        + "creators\n")
+                .addModifiers(PUBLIC, STATIC)
+                .addTypeVariables(typeVariables)
+                .returns(creatorOfClass)
+                .addParameters(creators)
+                .addStatement("return $L", creatorImpl)
+                .build();
+    }
+
+    private static CodeBlock createFromParcelBody(TypeName type, boolean intern, boolean pooled) {
+        CodeBlock.Builder ctorCall = CodeBlock.builder();
+        if (intern) {
+            ctorCall.add("return INTERNER.intern(new $T(in));\n", type);
+        } else if (pooled) {
+            ctorCall.addStatement("$T instance = obtain()", type);
+            ctorCall.addStatement("instance.readFromParcel(in)");
+            ctorCall.addStatement("return instance");
+        } else {
+            ctorCall.add("return new $T(in);\n", type);
+        }
+        return ctorCall.build();
+    }
+
+    private FieldSpec generateSharedCreatorField(TypeName type, int id, String pkg) {
+        ClassName creator = ClassName.bestGuess("android.os.Parcelable.Creator");
+        return FieldSpec
+                .builder(ParameterizedTypeName.get(creator, type), "CREATOR", PUBLIC, FINAL, STATIC)
+                .initializer("new $T<>($L)", ClassName.get(pkg, "AutoParcelCreator"), id)
+                .build();
+    }
+
+    private FieldSpec generateInterner(TypeName type) {
+        TypeName internerOfClass = ParameterizedTypeName.get(WEAK_INTERNER, type);
+        return FieldSpec
+                .builder(internerOfClass, "INTERNER", PRIVATE, STATIC, FINAL)
+                .initializer("new $T<>()", WEAK_INTERNER)
+                .build();
+    }
+
+    private MethodSpec generateDeepCopy(
+            ProcessingEnvironment env,
+            ImmutableList<Property> properties,
+            TypeName classTypeName,
+            String pkg) {
+
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("deepCopy")
+                .addJavadoc("@return a copy of this instance. Nested {@code @AutoParcel} values of the same package,\n"
+                        + "also in lists, arrays and map values, are copied too. Values of types that cannot be\n"
+                        + "copied, like {@code Serializable} or adapted fields, are shared with this instance\n")
+                .addModifiers(PUBLIC)
+                .returns(classTypeName);
+
+        // lists, arrays and maps that need a loop are copied into locals first
+        CodeBlock.Builder block = CodeBlock.builder();
+        Map<Property, String> locals = new HashMap<>();
+        for (Property p : properties) {
+            if (p.codec != null || p.creator != null) {
+                continue;
+            }
+            String local = p.fieldName + "Copy";
+            CodeBlock copy = copyCollection(p, pkg, local);
+            if (copy != null) {
+                block.add(copy);
+                locals.put(p, local);
+            }
+        }
+
+        block.add("$T copy = new $T(", classTypeName, classTypeName);
+        block.add("$>$>");
+        for (int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
+
+            // values with an adapter or a custom encoding are copied like their plain type
+            TypeName parcelableType = Parcelables.getTypeNameFromProperty(p, env.getTypeUtils());
+            ClassName nested = Parcelables.isParcelableType(parcelableType) ? nestedAutoParcelClass(p, pkg) : null;
+
+            block.add(i == 0 ? "\n" : ",\n");
+            if (locals.containsKey(p)) {
+                block.add("$N", locals.get(p));
+            } else if (p.codec != null) {
+                block.add("$T.deepCopy(this.$N)", p.codec, p.fieldName);
+            } else {
+                block.add(Parcelables.copyValue(p, parcelableType, nested));
+            }
+        }
+        block.add(");\n$<$<");
+        block.addStatement("copy.version = this.version");
+        block.addStatement("return copy");
+
+        return builder.addCode(block.build()).build();
+    }
+
+    /**
+     * @return the statements that copy a list or array of nested {@code @AutoParcel} values, or a
+     * map, into the {@code copy} local, or {@code null} when {@code Parcelables.copyValue()} does
+     */
+    private CodeBlock copyCollection(Property p, String pkg, String copy) {
+        TypeMirror type = p.element.asType();
+        if (Parcelables.isCopyableMap(p.typeName)) {
+            TypeMirror valueType = ((DeclaredType) type).getTypeArguments().get(1);
+            return Parcelables.copyCollection(p, copy, nestedAutoParcelClass(valueType, pkg));
+        } else if (Parcelables.isCopyableList(p.typeName)) {
+            TypeMirror elementType = type.getKind() == TypeKind.ARRAY
+                    ? ((ArrayType) type).getComponentType()
+                    : ((DeclaredType) type).getTypeArguments().get(0);
+            ClassName nested = nestedAutoParcelClass(elementType, pkg);
+            return nested == null ? null : Parcelables.copyCollection(p, copy, nested);
+        }
+        return null;
+    }
+
+    private FieldSpec generatePool(TypeName type) {
+        TypeName poolOfClass = ParameterizedTypeName.get(OBJECT_POOL, type);
+        return FieldSpec
+                .builder(poolOfClass, "POOL", PRIVATE, STATIC, FINAL)
+                .initializer("new $T<>()", OBJECT_POOL)
+                .build();
+    }
+
+    private MethodSpec generateObtain(TypeName type) {
+        return MethodSpec.methodBuilder("obtain")
+                .addJavadoc("@return a pooled instance, or a new one if the pool is empty\n")
+                .addModifiers(PUBLIC, STATIC)
+                .returns(type)
+                .addStatement("$T instance = POOL.acquire()", type)
+                .addStatement("return instance != null ? instance : new $T()", type)
+                .build();
+    }
+
+    private MethodSpec generateRecycle(ImmutableList<Property> properties, ImmutableList<Property> derived,
+                                       List<Property> readInPlace, boolean cacheHashCode) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("recycle")
+                .addJavadoc("Clears the fields and returns this instance to the pool, it must not be used anymore\n")
+                .addModifiers(PUBLIC);
+
+        builder.addStatement("this.version = 0");
+        if (cacheHashCode) {
+            builder.addStatement("this.cachedHashCode = 0");
+        }
+        for (Property p : Iterables.concat(properties, derived)) {
+            builder.addStatement("this.$N = $L", p.fieldName, Parcelables.defaultValue(p));
+        }
+        for (Property p : readInPlace) {
+            builder.addStatement("this.$N = null", ownedFieldName(p));
+        }
+        builder.addStatement("POOL.release(this)");
+
+        return builder.build();
+    }
+
+    private MethodSpec generateEquals(ImmutableList<Property> properties, TypeName classToExtend,
+                                      boolean cacheHashCode) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("equals")
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(boolean.class)
+                .addParameter(Object.class, "o");
+
+        builder.beginControlFlow("if (o == this)")
+                .addStatement("return true")
+                .endControlFlow();
+        builder.beginControlFlow("if (!(o instanceof $T))", classToExtend)
+                .addStatement("return false")
+                .endControlFlow();
+        builder.addStatement("$T that = ($T) o", classToExtend, classToExtend);
+        if (cacheHashCode) {
+            // cheap once both hash codes are cached
+            builder.beginControlFlow("if (hashCode() != that.hashCode())")
+                    .addStatement("return false")
+                    .endControlFlow();
+        }
+
+        CodeBlock.Builder block = CodeBlock.builder().add("return ");
+        for (int i = 0; i < properties.size(); i++) {
+            if (i > 0) {
+                block.add("\n    && ");
+            }
+            block.add(Parcelables.equalsValue(properties.get(i), "that"));
+        }
+        builder.addStatement("$L", block.build());
+
+        return builder.build();
+    }
+
+    private static TypeName[] wildcards(int count) {
+        TypeName[] wildcards = new TypeName[count];
+        Arrays.fill(wildcards, WildcardTypeName.subtypeOf(Object.class));
+        return wildcards;
+    }
+
+    private MethodSpec generateHashCode(ImmutableList<Property> properties, boolean cacheHashCode) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("hashCode")
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(int.class);
+
+        if (cacheHashCode) {
+            // 0 means not computed yet, like String does
+            builder.addStatement("int h = this.cachedHashCode");
+            builder.beginControlFlow("if (h == 0)");
+            builder.addStatement("h = 1");
+        } else {
+            builder.addStatement("int h = 1");
+        }
+        for (Property p : properties) {
+            builder.addStatement("h *= 1000003");
+            builder.addStatement("h ^= $L", Parcelables.hashCodeValue(p));
+        }
+        if (cacheHashCode) {
+            builder.addStatement("this.cachedHashCode = h");
+            builder.endControlFlow();
+        }
+        builder.addStatement("return h");
+
+        return builder.build();
+    }
+
+    /**
+     * Checks whether the given type, or any of its ancestors other than {@link Object}, already
+     * implements <code>equals()</code> or <code>hashCode()</code>. Generating the other one would
+     * break their contract, so neither is generated and a warning is reported when only one is.
+     */
+    private boolean definesEqualsOrHashCode(TypeElement type) {
+        TypeElement annotated = type;
+        boolean equals = false;
+        boolean hashCode = false;
+        while (type != null && !type.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (method.getModifiers().contains(ABSTRACT)) {
+                    continue;
+                }
+                String name = method.getSimpleName().toString();
+                List<? extends VariableElement> params = method.getParameters();
+                if (name.equals("equals") && params.size() == 1
+                        && TypeName.get(params.get(0).asType()).equals(TypeName.OBJECT)) {
+                    equals = true;
+                } else if (name.equals("hashCode") && params.isEmpty()) {
+                    hashCode = true;
+                }
+            }
+            type = (TypeElement) mTypeUtils.asElement(type.getSuperclass());
+        }
+        if (equals != hashCode) {
+            mErrorReporter.reportWarning(String.format("The class defines %s but not %s, neither is generated",
+                    equals ? "equals()" : "hashCode()", equals ? "hashCode()" : "equals()"), annotated);
+        }
+        return equals || hashCode;
+    }
+
     private void checkModifiersIfNested(TypeElement type) {
         ElementKind enclosingKind = type.getEnclosingElement().getKind();
         if (enclosingKind.isClass() || enclosingKind.isInterface()) {
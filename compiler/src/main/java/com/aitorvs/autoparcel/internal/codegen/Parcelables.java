@@ -20,14 +20,19 @@ import com.google.common.collect.ImmutableSet;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeVariableName;
 
+import java.util.List;
 import java.util.Set;
 
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
@@ -41,8 +46,12 @@ import javax.lang.model.util.Types;
  */
 class Parcelables {
     private static final TypeName STRING = ClassName.get("java.lang", "String");
+    private static final ClassName BAD_PARCELABLE_EXCEPTION = ClassName.get("android.os", "BadParcelableException");
     private static final TypeName MAP = ClassName.get("java.util", "Map");
     private static final TypeName LIST = ClassName.get("java.util", "List");
+    private static final TypeName ARRAYLIST = ClassName.get("java.util", "ArrayList");
+    private static final TypeName HASHMAP = ClassName.get("java.util", "HashMap");
+    private static final TypeName LINKEDHASHMAP = ClassName.get("java.util", "LinkedHashMap");
     private static final TypeName BOOLEANARRAY = ArrayTypeName.of(boolean.class);
     private static final TypeName BYTEARRAY = ArrayTypeName.of(byte.class);
     private static final TypeName CHARARRAY = ArrayTypeName.of(char.class);
@@ -51,6 +60,13 @@ class Parcelables {
     private static final TypeName STRINGARRAY = ArrayTypeName.of(String.class);
     private static final TypeName SPARSEARRAY = ClassName.get("android.util", "SparseArray");
     private static final TypeName SPARSEBOOLEANARRAY = ClassName.get("android.util", "SparseBooleanArray");
+    private static final TypeName SPARSEINTARRAY = ClassName.get("android.util", "SparseIntArray");
+    private static final TypeName SPARSELONGARRAY = ClassName.get("android.util", "SparseLongArray");
+    private static final TypeName LONGSPARSEARRAY = ClassName.get("android.util", "LongSparseArray");
+    private static final TypeName ARRAYMAP = ClassName.get("android.util", "ArrayMap");
+    private static final TypeName ARRAYSET = ClassName.get("android.util", "ArraySet");
+    private static final TypeName ENUMSET = ClassName.get("java.util", "EnumSet");
+    private static final TypeName ENUMMAP = ClassName.get("java.util", "EnumMap");
     private static final TypeName BUNDLE = ClassName.get("android.os", "Bundle");
     private static final TypeName PARCELABLE = ClassName.get("android.os", "Parcelable");
     private static final TypeName PARCELABLEARRAY = ArrayTypeName.of(PARCELABLE);
@@ -63,15 +79,30 @@ class Parcelables {
     private static final TypeName SIZEF = ClassName.get("android.util", "SizeF");
     private static final TypeName TEXTUTILS = ClassName.get("android.text", "TextUtils");
     private static final TypeName ENUM = ClassName.get(Enum.class);
+    private static final TypeName ARRAYS = ClassName.get("java.util", "Arrays");
+    static final ClassName PARCEL_CONTEXT = ClassName.get("com.aitorvs.autoparcel", "ParcelContext");
+    /** name of the local that holds the {@code ParcelContext} in the generated methods */
+    static final String PARCEL_CONTEXT_NAME = "parcelContext";
+    private static final TypeName PACKED_ARRAYS = ClassName.get("com.aitorvs.autoparcel", "PackedArrays");
+    private static final TypeName COMPRESSED_VALUES = ClassName.get("com.aitorvs.autoparcel", "CompressedValues");
+    private static final TypeName UTF8_STRINGS = ClassName.get("com.aitorvs.autoparcel", "Utf8Strings");
 
     private static final Set<TypeName> VALID_TYPES = ImmutableSet.of(STRING, MAP, LIST, BOOLEANARRAY,
             BYTEARRAY, CHARARRAY, INTARRAY, LONGARRAY, STRINGARRAY, SPARSEARRAY, SPARSEBOOLEANARRAY,
             BUNDLE, PARCELABLE, PARCELABLEARRAY, CHARSEQUENCE, IBINDER, OBJECTARRAY,
-            SERIALIZABLE, PERSISTABLEBUNDLE, SIZE, SIZEF);
+            SERIALIZABLE, PERSISTABLEBUNDLE, SIZE, SIZEF, SPARSEINTARRAY, SPARSELONGARRAY, LONGSPARSEARRAY,
+            ARRAYMAP, ARRAYSET, ENUMSET, ENUMMAP);
+    // arrays written with their length first, the others go through writeValue()
+    private static final Set<TypeName> LENGTH_FIRST_ARRAYS = ImmutableSet.of(BOOLEANARRAY, BYTEARRAY, CHARARRAY,
+            INTARRAY, LONGARRAY, STRINGARRAY, OBJECTARRAY, PARCELABLEARRAY);
 
-    static void readValue(CodeBlock.Builder block, AutoParcelProcessor.Property property, final TypeName parcelableType) {
+    /**
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     */
+    static void readValue(CodeBlock.Builder block, AutoParcelProcessor.Property property, final TypeName parcelableType,
+                          boolean nullable) {
 
-        if (property.isNullable()) {
+        if (nullable) {
             block.add("in.readInt() == 0 ? ");
         }
 
@@ -157,21 +188,305 @@ class Parcelables {
             block.add("($T) in.readValue($T.class.getClassLoader())", property.typeName, parcelableType);
         }
 
-        if (property.isNullable()) {
+        if (nullable) {
             block.add(" : null");
         }
     }
 
-    public static void readValueWithTypeAdapter(CodeBlock.Builder block, AutoParcelProcessor.Property property, final FieldSpec adapter) {
-        if (property.isNullable()) {
+    /**
+     * Reads the value with its adapter. The adapter field has the type of the adapter class, so
+     * {@code IntParcelTypeAdapter}, {@code LongParcelTypeAdapter} and
+     * {@code DoubleParcelTypeAdapter} adapters are called without boxing
+     *
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     * @param context  whether the adapter is a {@code ContextParcelTypeAdapter}, which takes the
+     *                 {@code parcelContext} local of the enclosing method
+     */
+    public static void readValueWithTypeAdapter(CodeBlock.Builder block, AutoParcelProcessor.Property property, final FieldSpec adapter,
+                                                boolean nullable, boolean context) {
+        if (nullable) {
             block.add("in.readInt() == 0 ? ");
         }
-        block.add("$N.fromParcel(in)", adapter);
-        if (property.isNullable()) {
+        if (context) {
+            block.add("$N.fromParcel(in, $N)", adapter, PARCEL_CONTEXT_NAME);
+        } else {
+            block.add("$N.fromParcel(in)", adapter);
+        }
+        if (nullable) {
+            block.add(" : null");
+        }
+    }
+
+    /**
+     * Reads a value of a polymorphic {@code @AutoParcel} base class through its generated codec
+     *
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     */
+    static void readPolymorphicValue(CodeBlock.Builder block, ClassName codec, boolean nullable) {
+        if (nullable) {
+            block.add("in.readInt() == 0 ? ");
+        }
+        block.add("$T.read(in)", codec);
+        if (nullable) {
+            block.add(" : null");
+        }
+    }
+
+    /**
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     */
+    static void readPackedValue(CodeBlock.Builder block, AutoParcelProcessor.Property property, boolean nullable) {
+        if (nullable) {
+            block.add("in.readInt() == 0 ? ");
+        }
+        if (property.typeName.equals(INTARRAY)) {
+            block.add("$T.createIntArray(in)", PACKED_ARRAYS);
+        } else {
+            block.add("$T.createLongArray(in)", PACKED_ARRAYS);
+        }
+        if (nullable) {
+            block.add(" : null");
+        }
+    }
+
+    /**
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     */
+    static void readCompressedValue(CodeBlock.Builder block, AutoParcelProcessor.Property property, boolean nullable) {
+        if (nullable) {
+            block.add("in.readInt() == 0 ? ");
+        }
+        String method = property.typeName.equals(BYTEARRAY) ? "createByteArray" : "readString";
+        if (property.maxSize > 0) {
+            block.add("$T.$N(in, $L)", COMPRESSED_VALUES, method, property.maxSize);
+        } else {
+            block.add("$T.$N(in)", COMPRESSED_VALUES, method);
+        }
+        if (nullable) {
             block.add(" : null");
         }
     }
 
+    /**
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     */
+    static void readUtf8Value(CodeBlock.Builder block, boolean nullable) {
+        if (nullable) {
+            block.add("in.readInt() == 0 ? ");
+        }
+        block.add("$T.readString(in)", UTF8_STRINGS);
+        if (nullable) {
+            block.add(" : null");
+        }
+    }
+
+    /**
+     * @return minimum number of bytes an element of a value of the given type takes in the parcel,
+     * or 0 when the type does not start with its length
+     */
+    static int minElementSize(TypeName typeName) {
+        TypeName rawType = typeName instanceof ParameterizedTypeName
+                ? ((ParameterizedTypeName) typeName).rawType
+                : typeName;
+        if (rawType.equals(BYTEARRAY)) {
+            return 1;
+        } else if (rawType.equals(STRING)) {
+            return 2;
+        } else if (rawType.equals(LONGARRAY) || rawType.equals(SPARSEARRAY) || rawType.equals(SPARSEBOOLEANARRAY)
+                || rawType.equals(SPARSEINTARRAY) || rawType.equals(ARRAYMAP)) {
+            return 8;
+        } else if (rawType.equals(SPARSELONGARRAY) || rawType.equals(LONGSPARSEARRAY)) {
+            return 12;
+        } else if (rawType instanceof ArrayTypeName) {
+            // other arrays, like double[], go through writeValue() which writes a type tag first
+            return LENGTH_FIRST_ARRAYS.contains(rawType)
+                    || ((ArrayTypeName) rawType).componentType instanceof TypeVariableName ? 4 : 0;
+        } else if (rawType.equals(LIST) || rawType.equals(ARRAYLIST) || rawType.equals(ARRAYSET)) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * @return whether the property type can be read into its current value, see
+     * {@link #readValueInPlace(CodeBlock.Builder, AutoParcelProcessor.Property, TypeName, String)}
+     */
+    static boolean isReusableType(TypeName parcelableType) {
+        return parcelableType != null && (parcelableType.equals(INTARRAY)
+                || parcelableType.equals(LONGARRAY)
+                || parcelableType.equals(BOOLEANARRAY)
+                || parcelableType.equals(CHARARRAY)
+                || parcelableType.equals(BYTEARRAY)
+                || parcelableType.equals(STRINGARRAY)
+                || parcelableType.equals(LIST));
+    }
+
+    /**
+     * Adds to {@code block} the statements that read the property into its current array, when it
+     * has the same length as the one in the parcel, or into its current {@code ArrayList}, as long
+     * as the value is still the one in the {@code owned} field. Any other value is replaced by a
+     * new one.
+     */
+    static void readValueInPlace(CodeBlock.Builder block, AutoParcelProcessor.Property property,
+                                 final TypeName parcelableType, String owned) {
+        String name = property.fieldName;
+        String start = name + "Start";
+
+        // peek the length of the array or list without consuming it
+        block.addStatement("int $N = in.dataPosition()", start);
+        if (parcelableType.equals(LIST)) {
+            block.beginControlFlow("if (this.$N == this.$N && this.$N instanceof $T && in.readInt() >= 0)",
+                    name, owned, name, ARRAYLIST);
+            block.addStatement("this.$N.clear()", name);
+            block.addStatement("in.setDataPosition($N)", start);
+            block.addStatement("in.readList(this.$N, $T.class.getClassLoader())", name, parcelableType);
+        } else {
+            block.beginControlFlow("if (this.$N == this.$N && this.$N != null && in.readInt() == this.$N.length)",
+                    name, owned, name, name);
+            block.addStatement("in.setDataPosition($N)", start);
+            if (parcelableType.equals(INTARRAY)) {
+                block.addStatement("in.readIntArray(this.$N)", name);
+            } else if (parcelableType.equals(LONGARRAY)) {
+                block.addStatement("in.readLongArray(this.$N)", name);
+            } else if (parcelableType.equals(BOOLEANARRAY)) {
+                block.addStatement("in.readBooleanArray(this.$N)", name);
+            } else if (parcelableType.equals(CHARARRAY)) {
+                block.addStatement("in.readCharArray(this.$N)", name);
+            } else if (parcelableType.equals(BYTEARRAY)) {
+                block.addStatement("in.readByteArray(this.$N)", name);
+            } else {
+                block.addStatement("in.readStringArray(this.$N)", name);
+            }
+        }
+        block.nextControlFlow("else");
+        block.addStatement("in.setDataPosition($N)", start);
+        block.add("this.$N = ", name);
+        readValue(block, property, parcelableType, false);
+        block.add(";\n");
+        block.endControlFlow();
+    }
+
+    /**
+     * @return whether values of the given type are copied by {@link #copyCollection} when their
+     * elements are nested {@code @AutoParcel} values: lists and arrays
+     */
+    static boolean isCopyableList(TypeName type) {
+        return type instanceof ArrayTypeName || type instanceof ParameterizedTypeName
+                && (((ParameterizedTypeName) type).rawType.equals(LIST)
+                || ((ParameterizedTypeName) type).rawType.equals(ARRAYLIST));
+    }
+
+    /**
+     * @return whether values of the given type are copied by {@link #copyCollection}: maps with
+     * type arguments other than wildcards
+     */
+    static boolean isCopyableMap(TypeName type) {
+        if (!(type instanceof ParameterizedTypeName)) {
+            return false;
+        }
+        ParameterizedTypeName map = (ParameterizedTypeName) type;
+        for (TypeName argument : map.typeArguments) {
+            if (!(argument instanceof ClassName) && !(argument instanceof ParameterizedTypeName)) {
+                return false;
+            }
+        }
+        return map.rawType.equals(MAP) || map.rawType.equals(HASHMAP) || map.rawType.equals(LINKEDHASHMAP);
+    }
+
+    /**
+     * Copies a list, array or map into the {@code copy} local, deep copying the elements or map
+     * values of the {@code nested} generated class. {@code Map} fields are copied into a
+     * {@code LinkedHashMap} to keep their order.
+     *
+     * @param nested the generated class of the elements, or {@code null} to share them
+     */
+    static CodeBlock copyCollection(AutoParcelProcessor.Property property, String copy, ClassName nested) {
+        String name = property.fieldName;
+        TypeName type = property.typeName;
+        CodeBlock.Builder block = CodeBlock.builder();
+        if (type instanceof ArrayTypeName) {
+            block.addStatement("$T $N = this.$N == null ? null : this.$N.clone()", type, copy, name, name);
+            block.beginControlFlow("for (int i = 0; $N != null && i < $N.length; i++)", copy, copy)
+                    .beginControlFlow("if ($N[i] instanceof $T)", copy, nested)
+                    .addStatement("$N[i] = (($T) $N[i]).deepCopy()", copy, nested, copy)
+                    .endControlFlow()
+                    .endControlFlow();
+            return block.build();
+        }
+
+        ParameterizedTypeName parameterized = (ParameterizedTypeName) type;
+        List<TypeName> arguments = parameterized.typeArguments;
+        if (isCopyableMap(type)) {
+            TypeName map = ParameterizedTypeName.get((ClassName) (parameterized.rawType.equals(HASHMAP) ? HASHMAP : LINKEDHASHMAP),
+                    arguments.toArray(new TypeName[0]));
+            block.addStatement("$T $N = this.$N == null ? null : new $T(this.$N)", type, copy, name, map, name);
+            if (nested != null) {
+                block.beginControlFlow("if ($N != null)", copy)
+                        .beginControlFlow("for ($T entry : $N.entrySet())",
+                                ParameterizedTypeName.get(ClassName.get("java.util", "Map", "Entry"),
+                                        arguments.toArray(new TypeName[0])), copy)
+                        .beginControlFlow("if (entry.getValue() instanceof $T)", nested)
+                        .addStatement("entry.setValue((($T) entry.getValue()).deepCopy())", nested)
+                        .endControlFlow()
+                        .endControlFlow()
+                        .endControlFlow();
+            }
+            return block.build();
+        }
+
+        TypeName elementType = arguments.get(0);
+        block.addStatement("$T $N = null", type, copy);
+        block.beginControlFlow("if (this.$N != null)", name)
+                .addStatement("$N = new $T(this.$N.size())", copy,
+                        ParameterizedTypeName.get((ClassName) ARRAYLIST, elementType), name)
+                .beginControlFlow("for ($T element : this.$N)", elementType, name)
+                .addStatement("$N.add(element instanceof $T ? (($T) element).deepCopy() : element)", copy, nested, nested)
+                .endControlFlow()
+                .endControlFlow();
+        return block.build();
+    }
+
+    /**
+     * Returns the expression that copies the property value of {@code this} for
+     * {@code deepCopy()}. Arrays are cloned, lists, bundles and sparse arrays are copied and
+     * nested {@code @AutoParcel} values are deep copied. Anything else, immutable values like
+     * strings, boxed primitives or enums included, is shared.
+     *
+     * @param nested the generated class of the property type when it is an {@code @AutoParcel}
+     *               class that can be deep copied, {@code null} otherwise
+     */
+    static CodeBlock copyValue(AutoParcelProcessor.Property property, final TypeName parcelableType,
+                               ClassName nested) {
+        String name = property.fieldName;
+        TypeName type = property.typeName;
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+
+        if (type.isPrimitive() || parcelableType == null) {
+            return CodeBlock.of("this.$N", name);
+        } else if (nested != null) {
+            return CodeBlock.of("this.$N instanceof $T ? (($T) this.$N).deepCopy() : this.$N",
+                    name, nested, nested, name, name);
+        } else if (type instanceof ArrayTypeName || parcelableType.equals(SPARSEARRAY)
+                || parcelableType.equals(SPARSEBOOLEANARRAY) || parcelableType.equals(SPARSEINTARRAY)
+                || parcelableType.equals(SPARSELONGARRAY) || parcelableType.equals(LONGSPARSEARRAY)) {
+            return CodeBlock.of("this.$N == null ? null : this.$N.clone()", name, name);
+        } else if (rawType.equals(ARRAYMAP) || rawType.equals(ARRAYSET)) {
+            return CodeBlock.of("this.$N == null ? null : new $T(this.$N)", name, type, name);
+        } else if (rawType.equals(ENUMSET) || rawType.equals(ENUMMAP)) {
+            return CodeBlock.of("this.$N == null ? null : this.$N.clone()", name, name);
+        } else if (parcelableType.equals(LIST) && (rawType.equals(LIST) || rawType.equals(ARRAYLIST))) {
+            TypeName copy = type instanceof ParameterizedTypeName
+                    ? ParameterizedTypeName.get((ClassName) ARRAYLIST,
+                    ((ParameterizedTypeName) type).typeArguments.toArray(new TypeName[0]))
+                    : ARRAYLIST;
+            return CodeBlock.of("this.$N == null ? null : new $T(this.$N)", name, copy, name);
+        } else if (type.equals(BUNDLE) || type.equals(PERSISTABLEBUNDLE)) {
+            return CodeBlock.of("this.$N == null ? null : new $T(this.$N)", name, type, name);
+        } else {
+            return CodeBlock.of("this.$N", name);
+        }
+    }
+
     public static CodeBlock writeVersion(int version, ParameterSpec out) {
         CodeBlock.Builder block = CodeBlock.builder();
 
@@ -181,10 +496,14 @@ class Parcelables {
         return block.build();
     }
 
-    public static CodeBlock writeValue(AutoParcelProcessor.Property property, ParameterSpec out, ParameterSpec flags, Types typeUtils) {
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    public static CodeBlock writeValue(AutoParcelProcessor.Property property, ParameterSpec out, ParameterSpec flags, Types typeUtils,
+                                       boolean nullable) {
         CodeBlock.Builder block = CodeBlock.builder();
 
-        if (property.isNullable()) {
+        if (nullable) {
             block.beginControlFlow("if ($N == null)", property.fieldName);
             block.addStatement("$N.writeInt(1)", out);
             block.nextControlFlow("else");
@@ -260,31 +579,782 @@ class Parcelables {
 
         block.add(";\n");
 
-        if (property.isNullable()) {
+        if (nullable) {
+            block.endControlFlow();
+        }
+        return block.build();
+    }
+
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     * @param context  whether the adapter is a {@code ContextParcelTypeAdapter}
+     */
+    public static CodeBlock writeValueWithTypeAdapter(FieldSpec adapter, AutoParcelProcessor.Property p, ParameterSpec out,
+                                                      boolean nullable, boolean context) {
+        CodeBlock.Builder block = CodeBlock.builder();
+
+        if (nullable) {
+            block.beginControlFlow("if ($N == null)", p.fieldName);
+            block.addStatement("$N.writeInt(1)", out);
+            block.nextControlFlow("else");
+            block.addStatement("$N.writeInt(0)", out);
+        }
+
+        if (context) {
+            block.addStatement("$N.toParcel($N, $N, $N)", adapter, p.fieldName, out, PARCEL_CONTEXT_NAME);
+        } else {
+            block.addStatement("$N.toParcel($N, $N)", adapter, p.fieldName, out);
+        }
+
+        if (nullable) {
+            block.endControlFlow();
+        }
+
+        return block.build();
+    }
+
+    /**
+     * Reads a {@code T}, {@code List<T>} or {@code T[]} value, where {@code T} is a type parameter
+     * of the class, with the {@code Parcelable.Creator} of {@code T}. A single {@code T} always
+     * has a null marker, lists and arrays write {@code null} themselves.
+     *
+     * @param nullable whether the value is preceded by a null marker in the parcel
+     */
+    static void readTypedValue(CodeBlock.Builder block, AutoParcelProcessor.Property property, boolean nullable) {
+        nullable |= isSingleTypedValue(property);
+        if (nullable) {
+            block.add("in.readInt() == 0 ? ");
+        }
+        if (property.typeName instanceof ArrayTypeName) {
+            block.add("in.createTypedArray($N)", property.creator);
+        } else if (property.typeName instanceof ParameterizedTypeName) {
+            block.add("in.createTypedArrayList($N)", property.creator);
+        } else {
+            block.add("$N.createFromParcel(in)", property.creator);
+        }
+        if (nullable) {
+            block.add(" : null");
+        }
+    }
+
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    static CodeBlock writeTypedValue(AutoParcelProcessor.Property p, ParameterSpec out, ParameterSpec flags,
+                                     boolean nullable) {
+        CodeBlock.Builder block = CodeBlock.builder();
+
+        nullable |= isSingleTypedValue(p);
+        if (nullable) {
+            block.beginControlFlow("if ($N == null)", p.fieldName);
+            block.addStatement("$N.writeInt(1)", out);
+            block.nextControlFlow("else");
+            block.addStatement("$N.writeInt(0)", out);
+        }
+
+        // the element type is known on both ends, no need to write the class name
+        if (p.typeName instanceof ArrayTypeName) {
+            block.addStatement("$N.writeTypedArray($N, $N)", out, p.fieldName, flags);
+        } else if (p.typeName instanceof ParameterizedTypeName) {
+            block.addStatement("$N.writeTypedList($N)", out, p.fieldName);
+        } else {
+            block.addStatement("$N.writeToParcel($N, $N)", p.fieldName, out, flags);
+        }
+
+        if (nullable) {
+            block.endControlFlow();
+        }
+
+        return block.build();
+    }
+
+    /**
+     * @return whether the value is a single {@code T}, written by {@code writeToParcel()} which
+     * does not handle {@code null}
+     */
+    private static boolean isSingleTypedValue(AutoParcelProcessor.Property property) {
+        return !(property.typeName instanceof ArrayTypeName) && !(property.typeName instanceof ParameterizedTypeName);
+    }
+
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    static CodeBlock writePolymorphicValue(AutoParcelProcessor.Property p, ParameterSpec out,
+                                           ParameterSpec flags, ClassName codec, boolean nullable) {
+        CodeBlock.Builder block = CodeBlock.builder();
+
+        if (nullable) {
+            block.beginControlFlow("if ($N == null)", p.fieldName);
+            block.addStatement("$N.writeInt(1)", out);
+            block.nextControlFlow("else");
+            block.addStatement("$N.writeInt(0)", out);
+        }
+
+        block.addStatement("$T.write($N, $N, $N)", codec, p.fieldName, out, flags);
+
+        if (nullable) {
+            block.endControlFlow();
+        }
+
+        return block.build();
+    }
+
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    static CodeBlock writePackedValue(AutoParcelProcessor.Property p, ParameterSpec out, boolean nullable) {
+        CodeBlock.Builder block = CodeBlock.builder();
+
+        if (nullable) {
+            block.beginControlFlow("if ($N == null)", p.fieldName);
+            block.addStatement("$N.writeInt(1)", out);
+            block.nextControlFlow("else");
+            block.addStatement("$N.writeInt(0)", out);
+        }
+
+        if (p.typeName.equals(INTARRAY)) {
+            block.addStatement("$T.writeIntArray($N, $N)", PACKED_ARRAYS, out, p.fieldName);
+        } else {
+            block.addStatement("$T.writeLongArray($N, $N)", PACKED_ARRAYS, out, p.fieldName);
+        }
+
+        if (nullable) {
+            block.endControlFlow();
+        }
+
+        return block.build();
+    }
+
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    static CodeBlock writeCompressedValue(AutoParcelProcessor.Property p, ParameterSpec out, boolean nullable) {
+        CodeBlock.Builder block = CodeBlock.builder();
+
+        if (nullable) {
+            block.beginControlFlow("if ($N == null)", p.fieldName);
+            block.addStatement("$N.writeInt(1)", out);
+            block.nextControlFlow("else");
+            block.addStatement("$N.writeInt(0)", out);
+        }
+
+        int minBytes = p.compressed.minBytes();
+        if (p.typeName.equals(BYTEARRAY)) {
+            block.addStatement("$T.writeByteArray($N, $N, $L)", COMPRESSED_VALUES, out, p.fieldName, minBytes);
+        } else if (p.typeName.equals(STRING)) {
+            block.addStatement("$T.writeString($N, $N, $L)", COMPRESSED_VALUES, out, p.fieldName, minBytes);
+        } else {
+            block.addStatement("$T.writeCharSequence($N, $N, $L)", COMPRESSED_VALUES, out, p.fieldName, minBytes);
+        }
+
+        if (nullable) {
             block.endControlFlow();
         }
+
         return block.build();
     }
 
-    public static CodeBlock writeValueWithTypeAdapter(FieldSpec adapter, AutoParcelProcessor.Property p, ParameterSpec out) {
+    /**
+     * @param nullable whether the value shall be preceded by a null marker
+     */
+    static CodeBlock writeUtf8Value(AutoParcelProcessor.Property p, ParameterSpec out, boolean nullable) {
         CodeBlock.Builder block = CodeBlock.builder();
 
-        if (p.isNullable()) {
+        if (nullable) {
             block.beginControlFlow("if ($N == null)", p.fieldName);
             block.addStatement("$N.writeInt(1)", out);
             block.nextControlFlow("else");
             block.addStatement("$N.writeInt(0)", out);
         }
 
-        block.addStatement("$N.toParcel($N, $N)", adapter, p.fieldName, out);
+        block.addStatement("$T.writeString($N, $N)", UTF8_STRINGS, out, p.fieldName);
 
-        if (p.isNullable()) {
+        if (nullable) {
             block.endControlFlow();
         }
 
         return block.build();
     }
 
+    static boolean isParcelableType(TypeName parcelableType) {
+        return PARCELABLE.equals(parcelableType);
+    }
+
+    static boolean isStringType(TypeName type) {
+        return type.equals(STRING);
+    }
+
+    /**
+     * How the keys or the values of a collection are written by the helper methods of
+     * {@link #collectionWriter} and {@link #enumCollectionWriter}
+     */
+    static final class CollectionElement {
+        final TypeName type;
+        /** the {@code Parcelable.Creator} of the type, or {@code null} */
+        final CodeBlock creator;
+        /** the adapter of the type, or {@code null} */
+        final FieldSpec adapter;
+        /** whether the adapter is a {@code BulkParcelTypeAdapter} */
+        final boolean bulk;
+        /** whether the adapter is a {@code ContextParcelTypeAdapter} */
+        final boolean context;
+
+        CollectionElement(TypeName type, CodeBlock creator, FieldSpec adapter, boolean bulk, boolean context) {
+            this.type = type;
+            this.creator = creator;
+            this.adapter = adapter;
+            this.bulk = bulk;
+            this.context = context;
+        }
+
+        /**
+         * @return whether the element is read with an unchecked cast from {@code Object}
+         */
+        boolean isUnchecked() {
+            return type instanceof ParameterizedTypeName && creator == null && adapter == null;
+        }
+    }
+
+    /**
+     * @return whether values of the given type are always written as runs of keys and values by
+     * the helper methods of {@link #collectionReader} and {@link #collectionWriter}
+     */
+    static boolean isCollectionType(TypeName type) {
+        if (type instanceof ParameterizedTypeName) {
+            TypeName rawType = ((ParameterizedTypeName) type).rawType;
+            return rawType.equals(SPARSEARRAY) || rawType.equals(LONGSPARSEARRAY) || rawType.equals(ARRAYMAP)
+                    || rawType.equals(ARRAYSET);
+        }
+        return type.equals(SPARSEINTARRAY) || type.equals(SPARSELONGARRAY);
+    }
+
+    /**
+     * @return whether the elements of values of the given type can have an adapter: lists,
+     * arrays of objects and {@code ArraySet}s
+     */
+    static boolean acceptsElementAdapter(TypeName type) {
+        if (type instanceof ArrayTypeName) {
+            TypeName componentType = ((ArrayTypeName) type).componentType;
+            return !componentType.isPrimitive() && !(componentType instanceof ParameterizedTypeName);
+        }
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : null;
+        return rawType != null && (rawType.equals(LIST) || rawType.equals(ARRAYLIST) || rawType.equals(ARRAYSET));
+    }
+
+    /**
+     * @return whether the keys of values of the given type can have an adapter: {@code Map},
+     * {@code HashMap}, {@code LinkedHashMap} and {@code ArrayMap}
+     */
+    static boolean acceptsKeyAdapter(TypeName type) {
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : null;
+        return rawType != null && (isMapType(rawType) || rawType.equals(ARRAYMAP));
+    }
+
+    /**
+     * @return whether the values of values of the given type can have an adapter: the maps and the
+     * sparse arrays
+     */
+    static boolean acceptsMapValueAdapter(TypeName type) {
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+        return acceptsKeyAdapter(type) || isCollectionType(type) && !rawType.equals(ARRAYSET)
+                || rawType.equals(ENUMMAP);
+    }
+
+    private static boolean isMapType(TypeName rawType) {
+        return rawType.equals(MAP) || rawType.equals(HASHMAP) || rawType.equals(LINKEDHASHMAP);
+    }
+
+    /**
+     * @return the key type of a collection type: {@code int} for the sparse arrays, {@code long}
+     * for {@code LongSparseArray}, the first type argument of the maps and {@code null} for lists,
+     * arrays and {@code ArraySet}
+     */
+    static TypeName collectionKeyType(TypeName type) {
+        if (type instanceof ArrayTypeName) {
+            return null;
+        }
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+        if (rawType.equals(LONGSPARSEARRAY)) {
+            return TypeName.LONG;
+        } else if (rawType.equals(ARRAYMAP) || isMapType(rawType)) {
+            return ((ParameterizedTypeName) type).typeArguments.get(0);
+        } else if (rawType.equals(ARRAYSET) || rawType.equals(LIST) || rawType.equals(ARRAYLIST)) {
+            return null;
+        }
+        return TypeName.INT;
+    }
+
+    /**
+     * @return the value type of a collection type: {@code int} for {@code SparseIntArray},
+     * {@code long} for {@code SparseLongArray}, the component type of arrays and the last type
+     * argument otherwise
+     */
+    static TypeName collectionValueType(TypeName type) {
+        if (type.equals(SPARSEINTARRAY)) {
+            return TypeName.INT;
+        } else if (type.equals(SPARSELONGARRAY)) {
+            return TypeName.LONG;
+        } else if (type instanceof ArrayTypeName) {
+            return ((ArrayTypeName) type).componentType;
+        }
+        List<TypeName> arguments = ((ParameterizedTypeName) type).typeArguments;
+        return arguments.get(arguments.size() - 1);
+    }
+
+    /**
+     * Builds the helper method that writes a collection: its size, -1 for {@code null}, then the
+     * elements of lists and arrays, the entries of maps, or the run of keys and the run of values
+     * of the android.util collections, in index order. Primitive keys and values are written as
+     * they are, {@code String}s with {@code writeString()}, elements with an adapter or a creator
+     * after a null marker and anything else with {@code writeValue()}. The elements of lists and
+     * arrays with a bulk adapter are all passed to its {@code toParcelArray()} at once.
+     *
+     * @param key the keys, {@code null} for lists, arrays and {@code ArraySet}
+     */
+    static MethodSpec collectionWriter(String name, TypeName type, CollectionElement key, CollectionElement value) {
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(type, "value")
+                .addParameter(ClassName.get("android.os", "Parcel"), "dest")
+                .addParameter(int.class, "flags");
+
+        builder.beginControlFlow("if (value == null)")
+                .addStatement("dest.writeInt(-1)")
+                .addStatement("return")
+                .endControlFlow();
+        addParcelContext(builder, key, value);
+        builder.addStatement(type instanceof ArrayTypeName ? "int size = value.length" : "int size = value.size()");
+        builder.addStatement("dest.writeInt(size)");
+        if (value.bulk && type instanceof ArrayTypeName) {
+            builder.addStatement("$N.toParcelArray($T.asList(value), dest)", value.adapter, ARRAYS);
+        } else if (value.bulk && (rawType.equals(LIST) || rawType.equals(ARRAYLIST))) {
+            builder.addStatement("$N.toParcelArray(value, dest)", value.adapter);
+        } else if (type instanceof ArrayTypeName || rawType.equals(LIST) || rawType.equals(ARRAYLIST)) {
+            builder.beginControlFlow("for ($T element : value)", value.type)
+                    .addCode(writeElement(value, "element", CodeBlock.of("element")))
+                    .endControlFlow();
+        } else if (isMapType(rawType)) {
+            builder.beginControlFlow("for ($T entry : value.entrySet())",
+                    ParameterizedTypeName.get(ClassName.get("java.util", "Map", "Entry"), key.type.box(), value.type.box()))
+                    .addCode(writeElement(key, "key", CodeBlock.of("entry.getKey()")))
+                    .addCode(writeElement(value, "element", CodeBlock.of("entry.getValue()")))
+                    .endControlFlow();
+        } else {
+            if (key != null) {
+                builder.beginControlFlow("for (int i = 0; i < size; i++)")
+                        .addCode(writeElement(key, "key", CodeBlock.of("value.keyAt(i)")))
+                        .endControlFlow();
+            }
+            builder.beginControlFlow("for (int i = 0; i < size; i++)")
+                    .addCode(writeElement(value, "element", CodeBlock.of("value.valueAt(i)")))
+                    .endControlFlow();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Builds the helper method that reads a collection written by {@link #collectionWriter}. The
+     * collection is created with its final capacity and, for the sparse arrays, the keys come
+     * sorted so that every entry is appended.
+     *
+     * @param key the keys, {@code null} for lists, arrays and {@code ArraySet}
+     */
+    static MethodSpec collectionReader(String name, TypeName type, CollectionElement key, CollectionElement value) {
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .returns(type)
+                .addParameter(ClassName.get("android.os", "Parcel"), "in");
+        // only casts from Object to a parameterized key or value type are unchecked
+        if (value.isUnchecked() || key != null && (key.isUnchecked()
+                || rawType.equals(ARRAYMAP) && key.type instanceof ParameterizedTypeName)) {
+            builder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "$S", "unchecked")
+                    .build());
+        }
+
+        builder.addStatement("int size = in.readInt()");
+        builder.beginControlFlow("if (size < 0)")
+                .addStatement("return null")
+                .endControlFlow();
+        // a forged size must not allocate the keys or values, unless their size is unknown
+        int minEntrySize = (key != null ? minElementSize(key) : 0) + minElementSize(value);
+        if (minEntrySize > 0) {
+            builder.beginControlFlow("if (size > in.dataAvail() / $L)", minEntrySize)
+                    .addStatement("throw new $T($S + size)", BAD_PARCELABLE_EXCEPTION, "Corrupt collection size: ")
+                    .endControlFlow();
+        }
+        addParcelContext(builder, key, value);
+
+        if (value.bulk && (type instanceof ArrayTypeName || rawType.equals(LIST) || rawType.equals(ARRAYLIST))) {
+            TypeName list = ParameterizedTypeName.get((ClassName) ARRAYLIST, value.type);
+            String values = type instanceof ArrayTypeName ? "values" : "value";
+            // the adapter checks size against what it reads, the list grows with the values it adds
+            builder.addStatement("$T $N = new $T()", list, values, list);
+            builder.addStatement("$N.fromParcelArray(in, size, $N)", value.adapter, values);
+            builder.beginControlFlow("if ($N.size() != size)", values)
+                    .addStatement("throw new $T($S + size)", BAD_PARCELABLE_EXCEPTION, "Corrupt collection size: ")
+                    .endControlFlow();
+            if (type instanceof ArrayTypeName) {
+                builder.addStatement("$T value = values.toArray(new $T[size])", type, value.type);
+            }
+        } else if (type instanceof ArrayTypeName) {
+            builder.addStatement("$T value = new $T[size]", type, value.type);
+            builder.beginControlFlow("for (int i = 0; i < size; i++)")
+                    .addStatement("value[i] = $L", readElement(value))
+                    .endControlFlow();
+        } else if (rawType.equals(LIST) || rawType.equals(ARRAYLIST)) {
+            TypeName list = ParameterizedTypeName.get((ClassName) ARRAYLIST, value.type);
+            builder.addStatement("$T value = new $T(size)", list, list);
+            builder.beginControlFlow("for (int i = 0; i < size; i++)")
+                    .addStatement("value.add($L)", readElement(value))
+                    .endControlFlow();
+        } else if (isMapType(rawType)) {
+            // big enough not to be rehashed at the default load factor
+            TypeName map = ParameterizedTypeName.get((ClassName) (rawType.equals(LINKEDHASHMAP) ? LINKEDHASHMAP : HASHMAP),
+                    key.type.box(), value.type.box());
+            builder.addStatement("$T value = new $T(size + size / 3 + 1)", map, map);
+            builder.beginControlFlow("for (int i = 0; i < size; i++)")
+                    .addStatement("$T key = $L", key.type, readElement(key))
+                    .addStatement("value.put(key, $L)", readElement(value))
+                    .endControlFlow();
+        } else {
+            // keys come first, keep them until the values are read
+            if (key != null) {
+                TypeName keysType = key.type.isPrimitive() ? key.type : TypeName.OBJECT;
+                builder.addStatement("$T[] keys = new $T[size]", keysType, keysType);
+                builder.beginControlFlow("for (int i = 0; i < size; i++)")
+                        .addStatement("keys[i] = $L", readElement(key))
+                        .endControlFlow();
+            }
+
+            builder.addStatement("$T value = new $T(size)", type, type);
+            builder.beginControlFlow("for (int i = 0; i < size; i++)");
+            if (key == null) {
+                builder.addStatement("value.add($L)", readElement(value));
+            } else if (rawType.equals(ARRAYMAP)) {
+                builder.addStatement("value.put(($T) keys[i], $L)", key.type, readElement(value));
+            } else {
+                builder.addStatement("value.append(keys[i], $L)", readElement(value));
+            }
+            builder.endControlFlow();
+        }
+        builder.addStatement("return value");
+
+        return builder.build();
+    }
+
+    /**
+     * @return whether values of the given type can be written as bitmasks by the helper methods
+     * of {@link #enumCollectionReader} and {@link #enumCollectionWriter}
+     */
+    static boolean isEnumCollectionType(TypeName type) {
+        return type instanceof ParameterizedTypeName && (((ParameterizedTypeName) type).rawType.equals(ENUMSET)
+                || ((ParameterizedTypeName) type).rawType.equals(ENUMMAP));
+    }
+
+    /**
+     * Builds the helper method that writes an {@code EnumSet}, or an {@code EnumMap} as the
+     * bitmask of its keys followed by its values in key order. Enums of less than 64 constants
+     * take a single {@code long} of ordinal bits, -1 for {@code null}. Larger enums take the
+     * number of {@code long} words, -1 for {@code null}, followed by the words.
+     *
+     * @param constants number of constants of the enum
+     * @param value     the map values, {@code null} for {@code EnumSet}
+     */
+    static MethodSpec enumCollectionWriter(String name, TypeName type, int constants, CollectionElement value) {
+        List<TypeName> arguments = ((ParameterizedTypeName) type).typeArguments;
+        boolean map = ((ParameterizedTypeName) type).rawType.equals(ENUMMAP);
+        CodeBlock keys = map ? CodeBlock.of("value.keySet()") : CodeBlock.of("value");
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(type, "value")
+                .addParameter(ClassName.get("android.os", "Parcel"), "dest")
+                .addParameter(int.class, "flags");
+
+        if (constants < 64) {
+            builder.beginControlFlow("if (value == null)")
+                    .addStatement("dest.writeLong(-1L)")
+                    .addStatement("return")
+                    .endControlFlow();
+            builder.addStatement("long bits = 0L");
+            builder.beginControlFlow("for ($T key : $L)", arguments.get(0), keys)
+                    .addStatement("bits |= 1L << key.ordinal()")
+                    .endControlFlow();
+            builder.addStatement("dest.writeLong(bits)");
+        } else {
+            int words = (constants + 63) / 64;
+            builder.beginControlFlow("if (value == null)")
+                    .addStatement("dest.writeInt(-1)")
+                    .addStatement("return")
+                    .endControlFlow();
+            builder.addStatement("long[] words = new long[$L]", words);
+            builder.beginControlFlow("for ($T key : $L)", arguments.get(0), keys)
+                    .addStatement("words[key.ordinal() >>> 6] |= 1L << key.ordinal()")
+                    .endControlFlow();
+            builder.addStatement("dest.writeInt($L)", words);
+            builder.beginControlFlow("for (long word : words)")
+                    .addStatement("dest.writeLong(word)")
+                    .endControlFlow();
+        }
+
+        if (map) {
+            addParcelContext(builder, null, value);
+            builder.beginControlFlow("for ($T element : value.values())", value.type)
+                    .addCode(writeElement(value, "element", CodeBlock.of("element")))
+                    .endControlFlow();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Builds the helper method that reads an {@code EnumSet} or {@code EnumMap} written by
+     * {@link #enumCollectionWriter}
+     */
+    static MethodSpec enumCollectionReader(String name, TypeName type, int constants, CollectionElement value) {
+        List<TypeName> arguments = ((ParameterizedTypeName) type).typeArguments;
+        TypeName enumType = arguments.get(0);
+        boolean map = ((ParameterizedTypeName) type).rawType.equals(ENUMMAP);
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .returns(type)
+                .addParameter(ClassName.get("android.os", "Parcel"), "in");
+        if (map && value.isUnchecked()) {
+            builder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "$S", "unchecked")
+                    .build());
+        }
+
+        if (constants < 64) {
+            builder.addStatement("long bits = in.readLong()");
+            builder.beginControlFlow("if (bits == -1L)")
+                    .addStatement("return null")
+                    .endControlFlow();
+        } else {
+            builder.addStatement("int words = in.readInt()");
+            builder.beginControlFlow("if (words < 0)")
+                    .addStatement("return null")
+                    .endControlFlow();
+        }
+
+        if (map) {
+            addParcelContext(builder, null, value);
+            builder.addStatement("$T value = new $T($T.class)", type, type, enumType);
+        } else {
+            builder.addStatement("$T value = $T.noneOf($T.class)", type, ENUMSET, enumType);
+        }
+        builder.addStatement("$T[] constants = $T.values()", enumType, enumType);
+        if (constants >= 64) {
+            // the whole mask comes before the map values, a forged length must not allocate it
+            builder.beginControlFlow("if (words > (constants.length + 63) >>> 6)")
+                    .addStatement("throw new $T($S + words)", BAD_PARCELABLE_EXCEPTION,
+                            "Corrupt bitmask of " + enumType + ", words: ")
+                    .endControlFlow();
+            builder.addStatement("long[] mask = new long[words]");
+            builder.beginControlFlow("for (int word = 0; word < words; word++)")
+                    .addStatement("mask[word] = in.readLong()")
+                    .endControlFlow();
+            builder.beginControlFlow("for (int word = 0; word < words; word++)");
+            builder.addStatement("long bits = mask[word]");
+        }
+        builder.beginControlFlow("while (bits != 0L)");
+        builder.addStatement(constants < 64
+                ? "int ordinal = $T.numberOfTrailingZeros(bits)"
+                : "int ordinal = (word << 6) + $T.numberOfTrailingZeros(bits)", Long.class);
+        builder.addStatement("bits &= bits - 1");
+        builder.beginControlFlow("if (ordinal >= constants.length)")
+                .addStatement("throw new $T($S + ordinal)", BAD_PARCELABLE_EXCEPTION,
+                        "Corrupt bitmask of " + enumType + ", ordinal: ")
+                .endControlFlow();
+        if (map) {
+            builder.addStatement("value.put(constants[ordinal], $L)", readElement(value));
+        } else {
+            builder.addStatement("value.add(constants[ordinal])");
+        }
+        builder.endControlFlow();
+        if (constants >= 64) {
+            builder.endControlFlow();
+        }
+        builder.addStatement("return value");
+
+        return builder.build();
+    }
+
+    /**
+     * Declares the {@code parcelContext} local of a helper method whose keys or values have a
+     * {@code ContextParcelTypeAdapter}. Helpers only run inside the context entered by the read or
+     * write methods of the generated class.
+     */
+    private static void addParcelContext(MethodSpec.Builder builder, CollectionElement key, CollectionElement value) {
+        if (key != null && key.context || value != null && value.context) {
+            builder.addStatement("$T $N = $T.current()", PARCEL_CONTEXT, PARCEL_CONTEXT_NAME, PARCEL_CONTEXT);
+        }
+    }
+
+    private static CodeBlock writeElement(CollectionElement element, String name, CodeBlock value) {
+        CodeBlock.Builder block = CodeBlock.builder();
+        TypeName type = element.type;
+        if (element.adapter != null && type.isPrimitive()) {
+            block.addStatement("$N.toParcel($L, dest)", element.adapter, value);
+        } else if (element.adapter == null && type.equals(TypeName.INT)) {
+            block.addStatement("dest.writeInt($L)", value);
+        } else if (element.adapter == null && type.equals(TypeName.LONG)) {
+            block.addStatement("dest.writeLong($L)", value);
+        } else if (element.adapter == null && type.equals(STRING)) {
+            block.addStatement("dest.writeString($L)", value);
+        } else if (element.adapter != null || element.creator != null) {
+            if (!value.toString().equals(name)) {
+                block.addStatement("$T $N = $L", type, name, value);
+            }
+            block.beginControlFlow("if ($N == null)", name)
+                    .addStatement("dest.writeInt(1)")
+                    .nextControlFlow("else")
+                    .addStatement("dest.writeInt(0)");
+            if (element.adapter != null && element.context) {
+                block.addStatement("$N.toParcel($N, dest, $N)", element.adapter, name, PARCEL_CONTEXT_NAME);
+            } else if (element.adapter != null) {
+                block.addStatement("$N.toParcel($N, dest)", element.adapter, name);
+            } else {
+                block.addStatement("$N.writeToParcel(dest, flags)", name);
+            }
+            block.endControlFlow();
+        } else {
+            block.addStatement("dest.writeValue($L)", value);
+        }
+        return block.build();
+    }
+
+    /**
+     * @return the minimum number of bytes an element takes in the parcel, see {@link #readElement},
+     * or 0 when a bulk adapter reads all of them
+     */
+    private static int minElementSize(CollectionElement element) {
+        if (element.bulk) {
+            return 0;
+        }
+        // null markers, lengths and type tags take an int, and so does the smallest value an
+        // adapter can write
+        return element.adapter == null && element.type.equals(TypeName.LONG) ? 8 : 4;
+    }
+
+    private static CodeBlock readElement(CollectionElement element) {
+        TypeName type = element.type;
+        if (element.adapter != null && element.context) {
+            return CodeBlock.of("in.readInt() == 0 ? $N.fromParcel(in, $N) : null", element.adapter, PARCEL_CONTEXT_NAME);
+        } else if (element.adapter != null) {
+            return type.isPrimitive()
+                    ? CodeBlock.of("$N.fromParcel(in)", element.adapter)
+                    : CodeBlock.of("in.readInt() == 0 ? $N.fromParcel(in) : null", element.adapter);
+        } else if (type.equals(TypeName.INT)) {
+            return CodeBlock.of("in.readInt()");
+        } else if (type.equals(TypeName.LONG)) {
+            return CodeBlock.of("in.readLong()");
+        } else if (type.equals(STRING)) {
+            return CodeBlock.of("in.readString()");
+        } else if (element.creator != null) {
+            return CodeBlock.of("in.readInt() == 0 ? $L.createFromParcel(in) : null", element.creator);
+        }
+        TypeName rawType = type instanceof ParameterizedTypeName ? ((ParameterizedTypeName) type).rawType : type;
+        return CodeBlock.of("($T) in.readValue($T.class.getClassLoader())", type, rawType);
+    }
+
+    static boolean isCompressibleType(TypeName type) {
+        return type.equals(BYTEARRAY) || type.equals(STRING) || type.equals(CHARSEQUENCE);
+    }
+
+    static boolean isPackableType(TypeName type) {
+        return type.equals(INTARRAY) || type.equals(LONGARRAY);
+    }
+
+    /**
+     * Builds the expression that compares the property of {@code this} with the one of
+     * {@code other}.
+     */
+    static CodeBlock equalsValue(AutoParcelProcessor.Property property, String other) {
+        TypeName type = property.typeName;
+        String name = property.fieldName;
+
+        if (type.equals(TypeName.FLOAT))
+            return CodeBlock.of("$T.floatToIntBits(this.$N) == $T.floatToIntBits($N.$N)",
+                    Float.class, name, Float.class, other, name);
+        else if (type.equals(TypeName.DOUBLE))
+            return CodeBlock.of("$T.doubleToLongBits(this.$N) == $T.doubleToLongBits($N.$N)",
+                    Double.class, name, Double.class, other, name);
+        else if (type.isPrimitive())
+            return CodeBlock.of("this.$N == $N.$N", name, other, name);
+        else if (type instanceof ArrayTypeName)
+            return CodeBlock.of("$T.equals(this.$N, $N.$N)", ARRAYS, name, other, name);
+        else
+            return CodeBlock.of("(this.$N == null ? $N.$N == null : this.$N.equals($N.$N))",
+                    name, other, name, name, other, name);
+    }
+
+    /**
+     * Builds the expression that computes the hash code of the property of {@code this}.
+     */
+    static CodeBlock hashCodeValue(AutoParcelProcessor.Property property) {
+        TypeName type = property.typeName;
+        String name = property.fieldName;
+
+        if (type.equals(TypeName.BOOLEAN))
+            return CodeBlock.of("(this.$N ? 1231 : 1237)", name);
+        else if (type.equals(TypeName.LONG))
+            return CodeBlock.of("(int) ((this.$N >>> 32) ^ this.$N)", name, name);
+        else if (type.equals(TypeName.FLOAT))
+            return CodeBlock.of("$T.floatToIntBits(this.$N)", Float.class, name);
+        else if (type.equals(TypeName.DOUBLE))
+            return CodeBlock.of("(int) (($T.doubleToLongBits(this.$N) >>> 32) ^ $T.doubleToLongBits(this.$N))",
+                    Double.class, name, Double.class, name);
+        else if (type.isPrimitive())
+            return CodeBlock.of("this.$N", name);
+        else if (type instanceof ArrayTypeName)
+            return CodeBlock.of("$T.hashCode(this.$N)", ARRAYS, name);
+        else
+            return CodeBlock.of("(this.$N == null ? 0 : this.$N.hashCode())", name, name);
+    }
+
+    /**
+     * Builds the condition that holds when the property of {@code this} is not set to its default
+     * value, i.e. 0, {@code false} or {@code null}.
+     */
+    static CodeBlock isNotDefaultValue(AutoParcelProcessor.Property property) {
+        TypeName type = property.typeName;
+        String name = property.fieldName;
+
+        if (type.equals(TypeName.BOOLEAN))
+            return CodeBlock.of("this.$N", name);
+        else if (type.equals(TypeName.FLOAT))
+            return CodeBlock.of("$T.floatToRawIntBits(this.$N) != 0", Float.class, name);
+        else if (type.equals(TypeName.DOUBLE))
+            return CodeBlock.of("$T.doubleToRawLongBits(this.$N) != 0L", Double.class, name);
+        else if (type.isPrimitive())
+            return CodeBlock.of("this.$N != 0", name);
+        else
+            return CodeBlock.of("this.$N != null", name);
+    }
+
+    /**
+     * @return the default value of the property type, i.e. 0, {@code false} or {@code null}
+     */
+    static CodeBlock defaultValue(AutoParcelProcessor.Property property) {
+        TypeName type = property.typeName;
+        if (type.equals(TypeName.BOOLEAN))
+            return CodeBlock.of("false");
+        else if (type.equals(TypeName.LONG))
+            return CodeBlock.of("0L");
+        else if (type.equals(TypeName.FLOAT))
+            return CodeBlock.of("0f");
+        else if (type.equals(TypeName.DOUBLE))
+            return CodeBlock.of("0d");
+        else if (type.isPrimitive())
+            return CodeBlock.of("0");
+        else
+            return CodeBlock.of("null");
+    }
+
     static boolean isTypeRequiresSuppressWarnings(TypeName type) {
         return type.equals(LIST) ||
                 type.equals(MAP);
@@ -292,6 +1362,10 @@ class Parcelables {
 
     static TypeName getTypeNameFromProperty(AutoParcelProcessor.Property property, Types types) {
         TypeMirror returnType = property.element.asType();
+        // type variables have no parcelable type of their own
+        if (returnType.getKind() == TypeKind.TYPEVAR) {
+            return property.typeName;
+        }
         TypeElement element = (TypeElement) types.asElement(returnType);
         if (element != null) {
             TypeName parcelableType = getParcelableType(types, element);
@@ -0,0 +1,87 @@
+package com.aitorvs.autoparcel.internal.codegen;
+
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.processing.Processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactModeTest {
+    private static final String[] SOURCES = {
+            "test.DateAdapter", ""
+                    + "package test;\n"
+                    + "import android.os.Parcel;\n"
+                    + "import java.util.Date;\n"
+                    + "public class DateAdapter implements com.aitorvs.autoparcel.ParcelTypeAdapter<Date> {\n"
+                    + "  public Date fromParcel(Parcel in) { return new Date(in.readLong()); }\n"
+                    + "  public void toParcel(Date value, Parcel dest) { dest.writeLong(value.getTime()); }\n"
+                    + "}\n",
+            "test.Event", ""
+                    + "package test;\n"
+                    + "import com.aitorvs.autoparcel.AutoParcel;\n"
+                    + "import com.aitorvs.autoparcel.ParcelAdapter;\n"
+                    + "@AutoParcel public abstract class Event implements android.os.Parcelable {\n"
+                    + "  public String name;\n"
+                    + "  @ParcelAdapter(DateAdapter.class) public java.util.Date time;\n"
+                    + "}\n",
+            "test.Venue", ""
+                    + "package test;\n"
+                    + "import com.aitorvs.autoparcel.AutoParcel;\n"
+                    + "import com.aitorvs.autoparcel.ParcelAdapter;\n"
+                    + "@AutoParcel public abstract class Venue implements android.os.Parcelable {\n"
+                    + "  public int capacity;\n"
+                    + "  @ParcelAdapter(DateAdapter.class) public java.util.Date opened;\n"
+                    + "}\n",
+    };
+
+    @Test
+    public void generatesOneCreatorPerClassByDefault() throws Exception {
+        Compilation compilation = Compilation.compile(Collections.<String>emptyList(),
+                Collections.<Processor>emptyList(), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertEquals(Collections.emptyList(), compilation.problems());
+        Set<String> classes = compilation.classesOf("test");
+        assertTrue(classes.toString(), classes.contains("AutoParcel_Event$1"));
+        assertTrue(classes.toString(), classes.contains("AutoParcel_Venue$1"));
+        assertFalse(classes.toString(), classes.contains("AutoParcelCreator"));
+    }
+
+    @Test
+    public void sharesCreatorAndAdaptersInCompactMode() throws Exception {
+        Compilation compilation = Compilation.compile(Arrays.asList("-Aautoparcel.compact=true"),
+                Collections.<Processor>emptyList(), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertEquals(Collections.emptyList(), compilation.problems());
+        Set<String> classes = compilation.classesOf("test");
+        assertEquals(classes.toString(), 8, classes.size());
+        assertTrue(classes.toString(), classes.contains("AutoParcelCreator"));
+        assertTrue(classes.toString(), classes.contains("AutoParcelAdapters"));
+        assertTrue(classes.toString(), classes.contains("AutoParcelRegistry"));
+        assertFalse(classes.toString(), classes.contains("AutoParcel_Event$1"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.aitorvs.autoparcel.internal.codegen;
+
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles sources with the {@link AutoParcelProcessor}, and any other processors, against the
+ * test class path
+ */
+final class Compilation {
+    final boolean success;
+    final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    final File classes;
+
+    private Compilation(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, File classes) {
+        this.success = success;
+        this.diagnostics = diagnostics;
+        this.classes = classes;
+    }
+
+    /**
+     * @param options javac options, e.g. {@code -Aautoparcel.compact=true}
+     * @param sources pairs of qualified class names and their sources
+     */
+    static Compilation compile(List<String> options, List<Processor> processors, String... sources)
+            throws IOException {
+        List<JavaFileObject> files = new ArrayList<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            files.add(source(sources[i], sources[i + 1]));
+        }
+        File classes = Files.createTempDirectory("autoparcel").toFile();
+        List<String> args = new ArrayList<>(options);
+        args.addAll(Arrays.asList("-classpath", classPath(),
+                "-d", classes.getPath(), "-s", classes.getPath()));
+        List<Processor> all = new ArrayList<>(processors);
+        all.add(new AutoParcelProcessor());
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, args, null, files);
+        task.setProcessors(all);
+        boolean success = task.call();
+        return new Compilation(success, diagnostics.getDiagnostics(), classes);
+    }
+
+    /**
+     * @return the test class path, which test runners may add to the class loader rather than
+     * to {@code java.class.path}
+     */
+    private static String classPath() {
+        StringBuilder classPath = new StringBuilder(System.getProperty("java.class.path"));
+        ClassLoader loader = Compilation.class.getClassLoader();
+        if (loader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader) loader).getURLs()) {
+                if ("file".equals(url.getProtocol())) {
+                    classPath.append(File.pathSeparator).append(new File(URI.create(url.toString())).getPath());
+                }
+            }
+        }
+        return classPath.toString();
+    }
+
+    private static JavaFileObject source(String className, final String source) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    /**
+     * @return the errors and warnings, as text
+     */
+    List<String> problems() {
+        List<String> problems = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR || diagnostic.getKind() == Diagnostic.Kind.WARNING
+                    || diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING) {
+                problems.add(diagnostic.getKind() + ": " + diagnostic.getMessage(null));
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * @return the names of the class files written for the package, e.g. {@code AutoParcel_Foo$1}
+     */
+    Set<String> classesOf(String pkg) {
+        Set<String> names = new TreeSet<>();
+        File[] files = new File(classes, pkg.replace('.', File.separatorChar)).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".class")) {
+                    names.add(file.getName().substring(0, file.getName().length() - ".class".length()));
+                }
+            }
+        }
+        return names;
+    }
+}
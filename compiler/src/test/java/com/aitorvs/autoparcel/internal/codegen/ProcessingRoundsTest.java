@@ -0,0 +1,125 @@
+package com.aitorvs.autoparcel.internal.codegen;
+
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProcessingRoundsTest {
+    private static final String[] SOURCES = {
+            "test.Event", ""
+                    + "package test;\n"
+                    + "@com.aitorvs.autoparcel.AutoParcel\n"
+                    + "public abstract class Event implements android.os.Parcelable {\n"
+                    + "  public String name;\n"
+                    + "}\n",
+    };
+
+    /**
+     * Generates an {@code @AutoParcel} class in the given round, like other processors may
+     */
+    @SupportedAnnotationTypes("*")
+    private static final class GeneratingProcessor extends AbstractProcessor {
+        private final String mPackage;
+        private final int mGenerateInRound;
+        private int mRound;
+
+        GeneratingProcessor(String pkg, int generateInRound) {
+            mPackage = pkg;
+            mGenerateInRound = generateInRound;
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+            if (++mRound == mGenerateInRound) {
+                try {
+                    Writer writer = processingEnv.getFiler().createSourceFile(mPackage + ".Generated").openWriter();
+                    writer.write("package " + mPackage + ";\n"
+                            + "@com.aitorvs.autoparcel.AutoParcel\n"
+                            + "public abstract class Generated implements android.os.Parcelable {\n"
+                            + "  public int id;\n"
+                            + "}\n");
+                    writer.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return false;
+        }
+    }
+
+    @Test
+    public void registersClassesOfLaterRounds() throws Exception {
+        Compilation compilation = Compilation.compile(Collections.<String>emptyList(),
+                Collections.<Processor>singletonList(new GeneratingProcessor("test", 1)), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertEquals(Collections.emptyList(), compilation.problems());
+        Set<String> classes = compilation.classesOf("test");
+        assertTrue(classes.toString(), classes.contains("AutoParcel_Generated"));
+        assertTrue(classes.toString(), classes.contains("AutoParcelRegistry"));
+    }
+
+    @Test
+    public void writesRegistryBeforeLastRound() throws Exception {
+        Compilation compilation = Compilation.compile(Collections.<String>emptyList(),
+                Collections.<Processor>emptyList(), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertEquals(Collections.emptyList(), compilation.problems());
+        assertTrue(compilation.classesOf("test").contains("AutoParcelRegistry"));
+    }
+
+    @Test
+    public void rejectsClassesGeneratedAfterTheRegistry() throws Exception {
+        Compilation compilation = Compilation.compile(Collections.<String>emptyList(),
+                Collections.<Processor>singletonList(new GeneratingProcessor("test", 3)), SOURCES);
+
+        assertFalse(compilation.success);
+        assertTrue(compilation.problems().toString(), compilation.problems().get(0).contains("AutoParcelRegistry"));
+    }
+
+    @Test
+    public void acceptsOtherPackagesAfterTheRegistry() throws Exception {
+        Compilation compilation = Compilation.compile(Collections.<String>emptyList(),
+                Collections.<Processor>singletonList(new GeneratingProcessor("other", 3)), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertTrue(compilation.classesOf("other").contains("AutoParcelRegistry"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.aitorvs.autoparcel.internal.codegen;
+
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.annotation.processing.Processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProguardRulesTest {
+    private static final String[] SOURCES = {
+            "com.example.model.Event", ""
+                    + "package com.example.model;\n"
+                    + "@com.aitorvs.autoparcel.AutoParcel\n"
+                    + "public abstract class Event implements android.os.Parcelable {\n"
+                    + "  public String name;\n"
+                    + "}\n",
+            "com.example.model.Page", ""
+                    + "package com.example.model;\n"
+                    + "@com.aitorvs.autoparcel.AutoParcel\n"
+                    + "public abstract class Page<T extends android.os.Parcelable> implements android.os.Parcelable {\n"
+                    + "  public T item;\n"
+                    + "}\n",
+            "com.example.model.detail.Venue", ""
+                    + "package com.example.model.detail;\n"
+                    + "@com.aitorvs.autoparcel.AutoParcel\n"
+                    + "public abstract class Venue implements android.os.Parcelable {\n"
+                    + "  public int capacity;\n"
+                    + "}\n",
+    };
+
+    @Test
+    public void keepsOnlyTheCreators() throws Exception {
+        Compilation compilation = Compilation.compile(Collections.<String>emptyList(),
+                Collections.<Processor>emptyList(), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertEquals(""
+                        + "# Generated by AutoParcel, do not edit\n"
+                        + "-keepclassmembers class com.example.model.AutoParcel_Event {\n"
+                        + "    public static final android.os.Parcelable$Creator CREATOR;\n"
+                        + "}\n"
+                        + "-keepclassmembers class com.example.model.detail.AutoParcel_Venue {\n"
+                        + "    public static final android.os.Parcelable$Creator CREATOR;\n"
+                        + "}\n",
+                rules(compilation, "com.example.model"));
+    }
+
+    @Test
+    public void namesRulesAfterModuleOption() throws Exception {
+        Compilation compilation = Compilation.compile(Arrays.asList("-Aautoparcel.module=sample"),
+                Collections.<Processor>emptyList(), SOURCES);
+
+        assertTrue(compilation.problems().toString(), compilation.success);
+        assertTrue(rules(compilation, "sample").contains("AutoParcel_Event"));
+    }
+
+    private static String rules(Compilation compilation, String module) throws Exception {
+        File file = new File(compilation.classes, "META-INF/proguard/autoparcel-" + module + ".pro");
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -13,9 +13,84 @@ import java.lang.annotation.Target;
  * {@literal @}AutoParcel public abstract class Foo  {...}
  * </code>
  * </pre>
+ *
+ * Set {@link #intern()} to hash-cons the instances read from a {@code Parcel} and {@link #sparse()}
+ * to elide the fields set to their default value. Set {@link #pooled()} to reuse the instances
+ * of short-lived models.
+ *
+ * The generated class implements {@code equals()} and {@code hashCode()} field by field, unless the
+ * annotated class already does.
  */
 @Target(ElementType.TYPE) // on class level
 @Retention(RetentionPolicy.SOURCE)
 public @interface AutoParcel {
     int version() default 0;
+
+    /**
+     * When set, {@code CREATOR.createFromParcel()} returns canonical instances, so that equal
+     * values read from a {@code Parcel} are one object. Instances are compared with the generated
+     * {@code equals()} and {@code hashCode()}, unless the class defines them, and must not be
+     * mutated once created. Requires the {@code adapter} runtime component.
+     *
+     * @return {@code true} to intern the instances read from a {@code Parcel}
+     */
+    boolean intern() default false;
+
+    /**
+     * When set, the generated {@code writeToParcel()} writes a bitmap of the fields that are not
+     * set to their default value (0, {@code false} or {@code null}) followed by only those values.
+     * Useful for wide models where most fields are usually left unset. Empty strings, arrays and
+     * collections are not {@code null}, so they are still written.
+     *
+     * @return {@code true} to elide the fields set to their default value
+     */
+    boolean sparse() default false;
+
+    /**
+     * When set, all the {@code String} fields are written as UTF-8, like if they were annotated
+     * with {@link ParcelUtf8}. Fields with a {@code ParcelAdapter} or {@link ParcelCompressed}
+     * are left untouched.
+     *
+     * @return {@code true} to write all the {@code String} fields as UTF-8
+     */
+    boolean utf8() default false;
+
+    /**
+     * When set, the generated class gets a static {@code obtain()} and a {@code recycle()} that
+     * clears the fields and returns the instance to a bounded pool, in the style of
+     * {@code android.os.Message}. {@code CREATOR.createFromParcel()} reads into pooled instances.
+     * Recycled instances must not be used anymore. Requires the {@code adapter} runtime component.
+     *
+     * @return {@code true} to pool the instances of the class
+     */
+    boolean pooled() default false;
+
+    /**
+     * When set, the generated {@code hashCode()} is computed once and cached. Only valid for
+     * models whose fields are not mutated after creation, other than through
+     * {@code readFromParcel()} or {@code recycle()}, which reset the cached value.
+     *
+     * @return {@code true} to cache the hash code of the instances
+     */
+    boolean cacheHashCode() default false;
+
+    /**
+     * The {@code @AutoParcel} subclasses of an abstract base class. Each subclass must be in the
+     * same package and directly extend the base class, and inherits its fields. Instead of a
+     * regular implementation, the base class gets a codec that writes a small integer tag, the
+     * index of the subclass in this array, followed by the subclass fields. Fields declared with
+     * the base class type are written through the codec.
+     *
+     * <p>Subclasses shall only be appended to this array, the tags are not stable otherwise.
+     *
+     * @return the subclasses of the annotated base class
+     */
+    Class<?>[] subtypes() default {};
+
+    /**
+     * The default {@link ParcelMaxSize} of the variable length fields of the class.
+     *
+     * @return maximum number of elements, or characters for strings, 0 for no limit
+     */
+    int maxSize() default 0;
 }
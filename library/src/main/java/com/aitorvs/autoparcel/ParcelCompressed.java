@@ -0,0 +1,50 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to indicate that the annotated {@code byte[]}, {@code String} or
+ * {@code CharSequence} field shall be deflate-compressed when it is larger than
+ * {@link #minBytes()}.
+ *
+ * <pre>
+ * <code>
+ * {@literal @}AutoParcel public abstract class Foo {
+ *   {@literal @}ParcelCompressed(minBytes = 8192) public String json;
+ * }
+ * </code>
+ * </pre>
+ *
+ * Values below the threshold, or that do not shrink, are written uncompressed. Strings are
+ * compressed as UTF-8 and {@code CharSequence} values are read back as plain {@code String}s,
+ * without their spans. Compression requires the {@code adapter} runtime component.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface ParcelCompressed {
+    /**
+     * @return size, in bytes as laid out in the {@code Parcel}, from which values are compressed
+     */
+    int minBytes() default 4096;
+}
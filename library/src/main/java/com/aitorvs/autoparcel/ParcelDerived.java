@@ -0,0 +1,52 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to indicate that the annotated field is derived from the other fields, so it is
+ * not written to the {@code Parcel}. It is reset to its default value (0, {@code false} or
+ * {@code null}) whenever the instance is read in place, so that it can be recomputed lazily.
+ *
+ * <pre>
+ * <code>
+ * {@literal @}AutoParcel public abstract class Foo {
+ *   public String firstName;
+ *   public String lastName;
+ *   {@literal @}ParcelDerived String displayName;
+ *
+ *   public String displayName() {
+ *     if (displayName == null) displayName = firstName + " " + lastName;
+ *     return displayName;
+ *   }
+ * }
+ * </code>
+ * </pre>
+ *
+ * Derived fields are also left out of the generated constructor, {@code equals()} and
+ * {@code hashCode()}, and are not copied by {@code deepCopy()} or {@code applyDelta()}.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface ParcelDerived {
+}
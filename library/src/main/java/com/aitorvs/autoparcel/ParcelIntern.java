@@ -0,0 +1,54 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to indicate that the values read from the {@code Parcel} for the annotated
+ * {@code String} field shall be interned, so that equal values share one instance.
+ *
+ * <pre>
+ * <code>
+ * {@literal @}AutoParcel public abstract class Foo {
+ *   {@literal @}ParcelIntern(size = 64) public String countryCode;
+ * }
+ * </code>
+ * </pre>
+ *
+ * Values go through a bounded, lock-free {@code StringInterner}. By default every annotated
+ * field gets its own interner of {@link #size()} entries; set {@link #global()} to share the
+ * process-wide interner instead. The interner requires the {@code adapter} runtime component.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface ParcelIntern {
+    /**
+     * @return number of entries of the per-field interner. Ignored when {@link #global()} is set
+     */
+    int size() default 256;
+
+    /**
+     * @return {@code true} to use the process-wide interner instead of a per-field one
+     */
+    boolean global() default false;
+}
@@ -0,0 +1,52 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to cap the length of the annotated array, {@code List}, {@code String} or sparse
+ * array field when it is read from a {@code Parcel}.
+ *
+ * <pre>
+ * <code>
+ * {@literal @}AutoParcel public abstract class Foo {
+ *   {@literal @}ParcelMaxSize(1024) public byte[] thumbnail;
+ * }
+ * </code>
+ * </pre>
+ *
+ * Before allocating the value, the generated code checks the length declared in the
+ * {@code Parcel} against the cap, and against the data left in the {@code Parcel}, and throws a
+ * {@code ParcelSizeException} otherwise, so that a corrupt or hostile {@code Parcel} cannot
+ * trigger huge allocations. {@link AutoParcel#maxSize()} sets a cap for all the fields of a class.
+ * Fields with a {@code ParcelAdapter} are not checked. The checks require the {@code adapter}
+ * runtime component.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface ParcelMaxSize {
+    /**
+     * @return maximum number of elements, or characters for strings
+     */
+    int value();
+}
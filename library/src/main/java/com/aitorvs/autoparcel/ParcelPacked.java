@@ -0,0 +1,45 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to indicate that the annotated {@code int[]} or {@code long[]} field shall be
+ * packed as zig-zag varint deltas between consecutive elements, instead of 4 or 8 bytes per
+ * element.
+ *
+ * <pre>
+ * <code>
+ * {@literal @}AutoParcel public abstract class Foo {
+ *   {@literal @}ParcelPacked public long[] timestamps;
+ * }
+ * </code>
+ * </pre>
+ *
+ * Best suited to sorted or slowly changing values, like timestamps or ids, where most deltas fit
+ * in one or two bytes. Packing requires the {@code adapter} runtime component.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface ParcelPacked {
+}
@@ -0,0 +1,45 @@
+package com.aitorvs.autoparcel;
+
+/*
+ * Copyright (C) 19/10/16 aitorvs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to indicate that the annotated {@code String} field shall be written to the
+ * {@code Parcel} as length-prefixed UTF-8 bytes instead of UTF-16.
+ *
+ * <pre>
+ * <code>
+ * {@literal @}AutoParcel public abstract class Foo {
+ *   {@literal @}ParcelUtf8 public String url;
+ * }
+ * </code>
+ * </pre>
+ *
+ * Mostly-ASCII values, like identifiers or URLs, take half the bytes. Use
+ * {@code @AutoParcel(utf8 = true)} to apply it to all the {@code String} fields of a class.
+ * UTF-8 strings require the {@code adapter} runtime component.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface ParcelUtf8 {
+}